@@ -0,0 +1,420 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+/*
+ * JNI binding for IoUringPoller, using the io_uring system calls directly, without liburing.
+ *
+ * Only IORING_OP_POLL_ADD and IORING_OP_POLL_REMOVE are submitted. Submissions are batched until
+ * submit() and completions are reaped from the shared completion queue without a system call.
+ */
+
+#include <errno.h>
+#include <jni.h>
+#include <linux/io_uring.h>
+#include <poll.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/mman.h>
+#include <sys/syscall.h>
+#include <unistd.h>
+
+#define COMPLETION_LENGTH 16
+
+struct ring
+{
+    int fd;
+
+    unsigned *sq_head;
+    unsigned *sq_tail;
+    unsigned *sq_mask;
+    unsigned *sq_flags;
+    unsigned *sq_array;
+    struct io_uring_sqe *sqes;
+    unsigned sq_pending;
+
+    unsigned *cq_head;
+    unsigned *cq_tail;
+    unsigned *cq_mask;
+    struct io_uring_cqe *cqes;
+
+    void *sq_ptr;
+    size_t sq_length;
+    void *cq_ptr;
+    size_t cq_length;
+    size_t sqes_length;
+};
+
+static int io_uring_setup(
+    unsigned entries,
+    struct io_uring_params *params)
+{
+    return (int) syscall(__NR_io_uring_setup, entries, params);
+}
+
+static int io_uring_enter(
+    int fd,
+    unsigned to_submit,
+    unsigned min_complete,
+    unsigned flags)
+{
+    return (int) syscall(__NR_io_uring_enter, fd, to_submit, min_complete, flags, NULL, 0);
+}
+
+static int io_uring_register(
+    int fd,
+    unsigned opcode,
+    void *arg,
+    unsigned nr_args)
+{
+    return (int) syscall(__NR_io_uring_register, fd, opcode, arg, nr_args);
+}
+
+static void ring_unmap(
+    struct ring *ring)
+{
+    if (ring->sqes != NULL && ring->sqes != MAP_FAILED)
+    {
+        munmap(ring->sqes, ring->sqes_length);
+    }
+
+    if (ring->cq_ptr != NULL && ring->cq_ptr != MAP_FAILED && ring->cq_ptr != ring->sq_ptr)
+    {
+        munmap(ring->cq_ptr, ring->cq_length);
+    }
+
+    if (ring->sq_ptr != NULL && ring->sq_ptr != MAP_FAILED)
+    {
+        munmap(ring->sq_ptr, ring->sq_length);
+    }
+}
+
+static int ring_map(
+    struct ring *ring,
+    struct io_uring_params *params)
+{
+    ring->sq_length = params->sq_off.array + params->sq_entries * sizeof(unsigned);
+    ring->cq_length = params->cq_off.cqes + params->cq_entries * sizeof(struct io_uring_cqe);
+
+    if (params->features & IORING_FEAT_SINGLE_MMAP)
+    {
+        if (ring->cq_length > ring->sq_length)
+        {
+            ring->sq_length = ring->cq_length;
+        }
+        ring->cq_length = ring->sq_length;
+    }
+
+    ring->sq_ptr = mmap(NULL, ring->sq_length, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                        ring->fd, IORING_OFF_SQ_RING);
+    if (ring->sq_ptr == MAP_FAILED)
+    {
+        return -errno;
+    }
+
+    if (params->features & IORING_FEAT_SINGLE_MMAP)
+    {
+        ring->cq_ptr = ring->sq_ptr;
+    }
+    else
+    {
+        ring->cq_ptr = mmap(NULL, ring->cq_length, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                            ring->fd, IORING_OFF_CQ_RING);
+        if (ring->cq_ptr == MAP_FAILED)
+        {
+            return -errno;
+        }
+    }
+
+    ring->sqes_length = params->sq_entries * sizeof(struct io_uring_sqe);
+    ring->sqes = mmap(NULL, ring->sqes_length, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                      ring->fd, IORING_OFF_SQES);
+    if (ring->sqes == MAP_FAILED)
+    {
+        return -errno;
+    }
+
+    char *sq = ring->sq_ptr;
+    ring->sq_head = (unsigned *) (sq + params->sq_off.head);
+    ring->sq_tail = (unsigned *) (sq + params->sq_off.tail);
+    ring->sq_mask = (unsigned *) (sq + params->sq_off.ring_mask);
+    ring->sq_flags = (unsigned *) (sq + params->sq_off.flags);
+    ring->sq_array = (unsigned *) (sq + params->sq_off.array);
+
+    char *cq = ring->cq_ptr;
+    ring->cq_head = (unsigned *) (cq + params->cq_off.head);
+    ring->cq_tail = (unsigned *) (cq + params->cq_off.tail);
+    ring->cq_mask = (unsigned *) (cq + params->cq_off.ring_mask);
+    ring->cqes = (struct io_uring_cqe *) (cq + params->cq_off.cqes);
+
+    return 0;
+}
+
+// submits pending entries, also flushing completions the kernel kept back while the completion queue was full
+static int ring_submit(
+    struct ring *ring)
+{
+    const unsigned overflow = __atomic_load_n(ring->sq_flags, __ATOMIC_ACQUIRE) & IORING_SQ_CQ_OVERFLOW;
+    int submitted = 0;
+
+    if (ring->sq_pending != 0 || overflow != 0)
+    {
+        const unsigned flags = overflow != 0 ? IORING_ENTER_GETEVENTS : 0;
+
+        submitted = io_uring_enter(ring->fd, ring->sq_pending, 0, flags);
+        if (submitted < 0)
+        {
+            submitted = -errno;
+            if (submitted == -EINTR)
+            {
+                submitted = 0;
+            }
+        }
+        else
+        {
+            ring->sq_pending -= (unsigned) submitted;
+        }
+    }
+
+    return submitted;
+}
+
+// @return the next submission entry, submitting pending entries first when the submission queue is full
+static struct io_uring_sqe *ring_next_sqe(
+    struct ring *ring)
+{
+    const unsigned mask = *ring->sq_mask;
+    unsigned tail = *ring->sq_tail;
+
+    if (tail - __atomic_load_n(ring->sq_head, __ATOMIC_ACQUIRE) > mask)
+    {
+        if (ring_submit(ring) < 0 || tail - __atomic_load_n(ring->sq_head, __ATOMIC_ACQUIRE) > mask)
+        {
+            return NULL;
+        }
+    }
+
+    struct io_uring_sqe *sqe = &ring->sqes[tail & mask];
+    memset(sqe, 0, sizeof(*sqe));
+    ring->sq_array[tail & mask] = tail & mask;
+
+    return sqe;
+}
+
+static void ring_push_sqe(
+    struct ring *ring)
+{
+    __atomic_store_n(ring->sq_tail, *ring->sq_tail + 1, __ATOMIC_RELEASE);
+    ring->sq_pending++;
+}
+
+static int ring_supports(
+    int fd,
+    unsigned opcode)
+{
+    const size_t length = sizeof(struct io_uring_probe) + 256 * sizeof(struct io_uring_probe_op);
+    struct io_uring_probe *probe = calloc(1, length);
+    int supported = 0;
+
+    if (probe != NULL)
+    {
+        if (io_uring_register(fd, IORING_REGISTER_PROBE, probe, 256) == 0 && opcode <= probe->last_op)
+        {
+            supported = (probe->ops[opcode].flags & IO_URING_OP_SUPPORTED) != 0;
+        }
+        free(probe);
+    }
+
+    return supported;
+}
+
+JNIEXPORT jint JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_probe(
+    JNIEnv *env,
+    jclass cls)
+{
+    struct io_uring_params params;
+    memset(&params, 0, sizeof(params));
+
+    int fd = io_uring_setup(2, &params);
+    if (fd < 0)
+    {
+        return -errno;
+    }
+
+    int result = 0;
+    if ((params.features & IORING_FEAT_NODROP) == 0 ||
+        !ring_supports(fd, IORING_OP_POLL_ADD) ||
+        !ring_supports(fd, IORING_OP_POLL_REMOVE))
+    {
+        result = -EOPNOTSUPP;
+    }
+
+    close(fd);
+
+    return result;
+}
+
+JNIEXPORT jlong JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_create(
+    JNIEnv *env,
+    jclass cls,
+    jint entries)
+{
+    struct ring *ring = calloc(1, sizeof(struct ring));
+    if (ring == NULL)
+    {
+        return -ENOMEM;
+    }
+
+    struct io_uring_params params;
+    memset(&params, 0, sizeof(params));
+
+    ring->fd = io_uring_setup((unsigned) entries, &params);
+    if (ring->fd < 0)
+    {
+        const int error = errno;
+        free(ring);
+        return -error;
+    }
+
+    const int mapped = ring_map(ring, &params);
+    if (mapped != 0)
+    {
+        ring_unmap(ring);
+        close(ring->fd);
+        free(ring);
+        return mapped;
+    }
+
+    return (jlong) (intptr_t) ring;
+}
+
+JNIEXPORT void JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_close(
+    JNIEnv *env,
+    jclass cls,
+    jlong address)
+{
+    struct ring *ring = (struct ring *) (intptr_t) address;
+
+    // closing the ring cancels outstanding polls, releasing their references to the polled files
+    ring_unmap(ring);
+    close(ring->fd);
+    free(ring);
+}
+
+JNIEXPORT jint JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_pollAdd(
+    JNIEnv *env,
+    jclass cls,
+    jlong address,
+    jint fd,
+    jint events,
+    jlong token)
+{
+    struct ring *ring = (struct ring *) (intptr_t) address;
+    struct io_uring_sqe *sqe = ring_next_sqe(ring);
+    if (sqe == NULL)
+    {
+        return -EBUSY;
+    }
+
+    sqe->opcode = IORING_OP_POLL_ADD;
+    sqe->fd = fd;
+    sqe->poll32_events = (uint32_t) events;
+    sqe->user_data = (uint64_t) token;
+    ring_push_sqe(ring);
+
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_pollRemove(
+    JNIEnv *env,
+    jclass cls,
+    jlong address,
+    jlong token)
+{
+    struct ring *ring = (struct ring *) (intptr_t) address;
+    struct io_uring_sqe *sqe = ring_next_sqe(ring);
+    if (sqe == NULL)
+    {
+        return -EBUSY;
+    }
+
+    // completes the removed poll with -ECANCELED, and this entry with no user data
+    sqe->opcode = IORING_OP_POLL_REMOVE;
+    sqe->fd = -1;
+    sqe->addr = (uint64_t) token;
+    sqe->user_data = 0;
+    ring_push_sqe(ring);
+
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_submit(
+    JNIEnv *env,
+    jclass cls,
+    jlong address)
+{
+    return ring_submit((struct ring *) (intptr_t) address);
+}
+
+JNIEXPORT jint JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_reap(
+    JNIEnv *env,
+    jclass cls,
+    jlong address,
+    jlong completions,
+    jint maxCompletions)
+{
+    struct ring *ring = (struct ring *) (intptr_t) address;
+    const unsigned mask = *ring->cq_mask;
+    unsigned head = *ring->cq_head;
+    const unsigned tail = __atomic_load_n(ring->cq_tail, __ATOMIC_ACQUIRE);
+    char *completion = (char *) (intptr_t) completions;
+    int count = 0;
+
+    while (head != tail && count < maxCompletions)
+    {
+        const struct io_uring_cqe *cqe = &ring->cqes[head & mask];
+        memcpy(completion, &cqe->user_data, sizeof(uint64_t));
+        memcpy(completion + sizeof(uint64_t), &cqe->res, sizeof(int32_t));
+        completion += COMPLETION_LENGTH;
+        head++;
+        count++;
+    }
+
+    __atomic_store_n(ring->cq_head, head, __ATOMIC_RELEASE);
+
+    return count;
+}
+
+JNIEXPORT jint JNICALL Java_org_reaktivity_nukleus_tcp_internal_poller_IoUringNative_fd(
+    JNIEnv *env,
+    jclass cls,
+    jobject channel)
+{
+    // JNI is not subject to module encapsulation, so sun.nio.ch need not be opened as for EpollPoller
+    jclass selChImpl = (*env)->FindClass(env, "sun/nio/ch/SelChImpl");
+    if (selChImpl == NULL)
+    {
+        return -1;
+    }
+
+    jmethodID getFDVal = (*env)->GetMethodID(env, selChImpl, "getFDVal", "()I");
+    if (getFDVal == NULL)
+    {
+        return -1;
+    }
+
+    return (*env)->CallIntMethod(env, channel, getFDVal);
+}
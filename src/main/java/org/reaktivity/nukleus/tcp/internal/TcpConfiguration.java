@@ -24,6 +24,22 @@ public class TcpConfiguration extends Configuration
     public static final IntPropertyDef TCP_MAX_CONNECTIONS;
     public static final BooleanPropertyDef TCP_KEEPALIVE;
     public static final BooleanPropertyDef TCP_NODELAY;
+    public static final PropertyDef<String> TCP_POLLER;
+    public static final IntPropertyDef TCP_POLLER_MAX_EVENTS;
+    public static final IntPropertyDef TCP_WRITE_QUEUE_SLOTS;
+    public static final IntPropertyDef TCP_RESOLVER_THREADS;
+    public static final IntPropertyDef TCP_RESOLVER_CACHE_TTL;
+    public static final IntPropertyDef TCP_RESOLVER_NEGATIVE_CACHE_TTL;
+    public static final IntPropertyDef TCP_CONNECT_ATTEMPT_DELAY;
+    public static final IntPropertyDef TCP_CONNECT_TIMEOUT;
+    public static final IntPropertyDef TCP_IDLE_TIMEOUT;
+    public static final IntPropertyDef TCP_WRITE_TIMEOUT;
+    public static final IntPropertyDef TCP_CONNECT_POOL_MIN;
+    public static final IntPropertyDef TCP_CONNECT_POOL_MAX;
+    public static final BooleanPropertyDef TCP_HISTOGRAMS;
+    public static final IntPropertyDef TCP_COMMAND_QUEUE_CAPACITY;
+    public static final IntPropertyDef TCP_ACCEPT_BUDGET;
+    public static final IntPropertyDef TCP_ACCEPT_RATE;
 
     private static final ConfigurationDef TCP_CONFIG;
 
@@ -35,6 +51,22 @@ public class TcpConfiguration extends Configuration
         TCP_MAX_CONNECTIONS = config.property("max.connections", Integer.MAX_VALUE);
         TCP_KEEPALIVE = config.property("keepalive", false);
         TCP_NODELAY = config.property("nodelay", true);
+        TCP_POLLER = config.property("poller", "nio");
+        TCP_POLLER_MAX_EVENTS = config.property("poller.max.events", 1024);
+        TCP_WRITE_QUEUE_SLOTS = config.property("write.queue.slots", 1);
+        TCP_RESOLVER_THREADS = config.property("resolver.threads", 2);
+        TCP_RESOLVER_CACHE_TTL = config.property("resolver.cache.ttl", 30);
+        TCP_RESOLVER_NEGATIVE_CACHE_TTL = config.property("resolver.negative.cache.ttl", 10);
+        TCP_CONNECT_ATTEMPT_DELAY = config.property("connect.attempt.delay", 0);
+        TCP_CONNECT_TIMEOUT = config.property("connect.timeout", 0);
+        TCP_IDLE_TIMEOUT = config.property("idle.timeout", 0);
+        TCP_WRITE_TIMEOUT = config.property("write.timeout", 0);
+        TCP_CONNECT_POOL_MIN = config.property("connect.pool.min", 0);
+        TCP_CONNECT_POOL_MAX = config.property("connect.pool.max", 16);
+        TCP_HISTOGRAMS = config.property("histograms", false);
+        TCP_COMMAND_QUEUE_CAPACITY = config.property("command.queue.capacity", 64 * 1024);
+        TCP_ACCEPT_BUDGET = config.property("accept.budget", 0);
+        TCP_ACCEPT_RATE = config.property("accept.rate", 0);
         TCP_CONFIG = config;
     }
 
@@ -80,4 +112,100 @@ public class TcpConfiguration extends Configuration
         return TCP_NODELAY.getAsBoolean(this);
     }
 
+    // "nio", "epoll" or "io_uring", falls back to "nio" when the requested poller is not available
+    public String poller()
+    {
+        return TCP_POLLER.get(this);
+    }
+
+    public int pollerMaxEvents()
+    {
+        return TCP_POLLER_MAX_EVENTS.getAsInt(this);
+    }
+
+    // buffer slots each connection may queue for writing, the advertised window scales with it
+    public int writeQueueSlots()
+    {
+        return TCP_WRITE_QUEUE_SLOTS.getAsInt(this);
+    }
+
+    // threads shared by all elektrons for host name lookups, keeping blocking lookups off the poller
+    public int resolverThreads()
+    {
+        return TCP_RESOLVER_THREADS.getAsInt(this);
+    }
+
+    // seconds to cache resolved addresses
+    public int resolverCacheTtl()
+    {
+        return TCP_RESOLVER_CACHE_TTL.getAsInt(this);
+    }
+
+    // seconds to cache failed lookups
+    public int resolverNegativeCacheTtl()
+    {
+        return TCP_RESOLVER_NEGATIVE_CACHE_TTL.getAsInt(this);
+    }
+
+    // milliseconds between racing connect attempts to each resolved address, see RFC 8305, or 0 to connect to the first only
+    public int connectAttemptDelay()
+    {
+        return TCP_CONNECT_ATTEMPT_DELAY.getAsInt(this);
+    }
+
+    // milliseconds for a client connect to complete, or 0 to wait for the operating system
+    public int connectTimeout()
+    {
+        return TCP_CONNECT_TIMEOUT.getAsInt(this);
+    }
+
+    // milliseconds without reading or writing any bytes before aborting a connection, or 0 for no limit
+    public int idleTimeout()
+    {
+        return TCP_IDLE_TIMEOUT.getAsInt(this);
+    }
+
+    // milliseconds without progress writing queued bytes before aborting a connection, or 0 for no limit
+    public int writeTimeout()
+    {
+        return TCP_WRITE_TIMEOUT.getAsInt(this);
+    }
+
+    // idle connections kept established for each client route without a begin extension, or 0 for none,
+    // requires a client-first upstream protocol, pooling stops if an idle connection receives data
+    public int connectPoolMin()
+    {
+        return TCP_CONNECT_POOL_MIN.getAsInt(this);
+    }
+
+    // limit on idle connections for each client route, grown from the minimum as streams find none idle
+    public int connectPoolMax()
+    {
+        return TCP_CONNECT_POOL_MAX.getAsInt(this);
+    }
+
+    // records per route distributions as power of two bucket counters, see TcpHistogram
+    public boolean histograms()
+    {
+        return TCP_HISTOGRAMS.getAsBoolean(this);
+    }
+
+    // bytes of commands offered by controller threads, rounded up to a power of two, until sent by the controller
+    public int commandQueueCapacity()
+    {
+        return TCP_COMMAND_QUEUE_CAPACITY.getAsInt(this);
+    }
+
+    // connections accepted for each listener per poller cycle, leaving the rest in the backlog, or 0 for no limit
+    public int acceptBudget()
+    {
+        return TCP_ACCEPT_BUDGET.getAsInt(this);
+    }
+
+    // connections accepted for each listener per second, bursting up to the lesser of budget and rate, or 0 for no limit
+    public int acceptRate()
+    {
+        return TCP_ACCEPT_RATE.getAsInt(this);
+    }
+
 }
@@ -17,50 +17,91 @@ package org.reaktivity.nukleus.tcp.internal;
 
 import static java.nio.ByteBuffer.allocateDirect;
 import static java.nio.ByteOrder.nativeOrder;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.TRAILER_LENGTH;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
 import org.reaktivity.nukleus.Controller;
 import org.reaktivity.nukleus.ControllerSpi;
 import org.reaktivity.nukleus.route.RouteKind;
-import org.reaktivity.nukleus.tcp.internal.types.Flyweight;
 import org.reaktivity.nukleus.tcp.internal.types.OctetsFW;
 import org.reaktivity.nukleus.tcp.internal.types.control.FreezeFW;
 import org.reaktivity.nukleus.tcp.internal.types.control.Role;
 import org.reaktivity.nukleus.tcp.internal.types.control.RouteFW;
 import org.reaktivity.nukleus.tcp.internal.types.control.UnrouteFW;
 
+/**
+ * Controls the tcp nukleus from any number of threads.
+ * <p>
+ * Each calling thread encodes commands with its own flyweights and offers them to a many to one ring buffer,
+ * prefixed by a sequence identifying the pending future. Commands are sent to the reaktor in {@link #process()}.
+ * <p>
+ * While the ring buffer is full, callers wait for {@link #process()} to make room, except on the thread calling
+ * {@link #process()} itself, where waiting could never succeed, so the command fails instead.
+ * <p>
+ * The reaktor applies each command separately, so there is no batch command. To route in bulk, issue each
+ * {@code route} or {@code unroute} without joining its future, then join them all, and the queued commands
+ * are sent together by the next {@link #process()}.
+ */
 public final class TcpController implements Controller
 {
-    private static final int MAX_SEND_LENGTH = 1024; // TODO: Configuration and Context
+    private static final int MAX_SEND_LENGTH = 1024;
+    private static final int SEQUENCE_LENGTH = Long.BYTES;
 
-    // TODO: thread-safe flyweights or command queue from public methods
-    private final RouteFW.Builder routeRW = new RouteFW.Builder();
-    private final UnrouteFW.Builder unrouteRW = new UnrouteFW.Builder();
-    private final FreezeFW.Builder freezeRW = new FreezeFW.Builder();
+    // ring buffer messages are limited to an eighth of its capacity, see ManyToOneRingBuffer
+    private static final int MIN_COMMANDS_CAPACITY = (SEQUENCE_LENGTH + MAX_SEND_LENGTH) << 3;
 
-    private final OctetsFW extensionRO = new OctetsFW().wrap(new UnsafeBuffer(new byte[0]), 0, 0);
+    private static final OctetsFW EXTENSION_RO = new OctetsFW().wrap(new UnsafeBuffer(new byte[0]), 0, 0);
+
+    private final ThreadLocal<CommandEncoder> encoders = ThreadLocal.withInitial(CommandEncoder::new);
 
     private final ControllerSpi controllerSpi;
-    private final AtomicBuffer commandBuffer;
+    private final RingBuffer commands;
+    private final Map<Long, CompletableFuture<Object>> futuresBySequence;
+    private final AtomicLong sequence;
+
+    private volatile Thread processor;
+    private volatile boolean closed;
 
-    public TcpController(ControllerSpi controllerSpi)
+    public TcpController(
+        TcpConfiguration config,
+        ControllerSpi controllerSpi)
     {
+        final int commandsCapacity = findNextPositivePowerOfTwo(Math.max(config.commandQueueCapacity(), MIN_COMMANDS_CAPACITY));
+
         this.controllerSpi = controllerSpi;
-        this.commandBuffer = new UnsafeBuffer(allocateDirect(MAX_SEND_LENGTH).order(nativeOrder()));
+        this.commands = new ManyToOneRingBuffer(
+            new UnsafeBuffer(allocateDirect(commandsCapacity + TRAILER_LENGTH).order(nativeOrder())));
+        this.futuresBySequence = new ConcurrentHashMap<>();
+        this.sequence = new AtomicLong();
     }
 
     @Override
     public int process()
     {
-        return controllerSpi.doProcess();
+        processor = Thread.currentThread();
+
+        final int commandsSent = commands.read(this::onCommand);
+
+        return commandsSent + controllerSpi.doProcess();
     }
 
     @Override
     public void close() throws Exception
     {
+        closed = true;
         controllerSpi.doClose();
     }
 
@@ -106,53 +147,145 @@ public final class TcpController implements Controller
         String remoteAddress,
         String extension)
     {
-        return doRoute(kind, localAddress, remoteAddress, extensionRO);
+        final CommandEncoder encoder = encoders.get();
+        final RouteFW route = encoder.encodeRoute(kind, localAddress, remoteAddress);
+
+        return doOffer(route.typeId(), encoder.buffer, SEQUENCE_LENGTH + route.sizeof());
     }
 
     public CompletableFuture<Void> unroute(
         long routeId)
     {
-        final long correlationId = controllerSpi.nextCorrelationId();
+        final CommandEncoder encoder = encoders.get();
+        final UnrouteFW unroute = encoder.encodeUnroute(routeId);
 
-        final UnrouteFW unrouteRO = unrouteRW.wrap(commandBuffer, 0, commandBuffer.capacity())
-                                 .correlationId(correlationId)
-                                 .nukleus(name())
-                                 .routeId(routeId)
-                                 .build();
-
-        return controllerSpi.doUnroute(unrouteRO.typeId(), unrouteRO.buffer(), unrouteRO.offset(), unrouteRO.sizeof());
+        return doOffer(unroute.typeId(), encoder.buffer, SEQUENCE_LENGTH + unroute.sizeof());
     }
 
     public CompletableFuture<Void> freeze()
     {
-        long correlationId = controllerSpi.nextCorrelationId();
+        final CommandEncoder encoder = encoders.get();
+        final FreezeFW freeze = encoder.encodeFreeze();
+
+        return doOffer(freeze.typeId(), encoder.buffer, SEQUENCE_LENGTH + freeze.sizeof());
+    }
+
+    // offers an encoded command, preceded by space for the sequence
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> doOffer(
+        int msgTypeId,
+        MutableDirectBuffer buffer,
+        int length)
+    {
+        final long commandSequence = sequence.incrementAndGet();
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        futuresBySequence.put(commandSequence, future);
+        buffer.putLong(0, commandSequence);
+
+        boolean written = commands.write(msgTypeId, buffer, 0, length);
 
-        FreezeFW freeze = freezeRW.wrap(commandBuffer, 0, commandBuffer.capacity())
-                                  .correlationId(correlationId)
-                                  .nukleus(name())
-                                  .build();
+        if (!written && Thread.currentThread() != processor)
+        {
+            final IdleStrategy idleStrategy = new BackoffIdleStrategy(64, 64, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(1));
+            while (!written && !closed)
+            {
+                idleStrategy.idle();
+                written = commands.write(msgTypeId, buffer, 0, length);
+            }
+        }
 
-        return controllerSpi.doFreeze(freeze.typeId(), freeze.buffer(), freeze.offset(), freeze.sizeof());
+        if (!written)
+        {
+            futuresBySequence.remove(commandSequence);
+            future.completeExceptionally(new IllegalStateException("command queue full"));
+        }
+
+        return (CompletableFuture<T>) future;
     }
 
-    private CompletableFuture<Long> doRoute(
-        RouteKind kind,
-        String localAddress,
-        String remoteAddress,
-        Flyweight extension)
+    private void onCommand(
+        int msgTypeId,
+        MutableDirectBuffer buffer,
+        int index,
+        int length)
+    {
+        final CompletableFuture<Object> future = futuresBySequence.remove(buffer.getLong(index));
+        final int offset = index + SEQUENCE_LENGTH;
+        final int sizeof = length - SEQUENCE_LENGTH;
+
+        CompletableFuture<?> sent = null;
+        switch (msgTypeId)
+        {
+        case RouteFW.TYPE_ID:
+            sent = controllerSpi.doRoute(msgTypeId, buffer, offset, sizeof);
+            break;
+        case UnrouteFW.TYPE_ID:
+            sent = controllerSpi.doUnroute(msgTypeId, buffer, offset, sizeof);
+            break;
+        case FreezeFW.TYPE_ID:
+            sent = controllerSpi.doFreeze(msgTypeId, buffer, offset, sizeof);
+            break;
+        }
+
+        if (future != null && sent != null)
+        {
+            sent.whenComplete((r, ex) ->
+            {
+                if (ex != null)
+                {
+                    future.completeExceptionally(ex);
+                }
+                else
+                {
+                    future.complete(r);
+                }
+            });
+        }
+    }
+
+    private final class CommandEncoder
     {
-        final long correlationId = controllerSpi.nextCorrelationId();
-        final Role role = Role.valueOf(kind.ordinal());
-
-        final RouteFW routeRO = routeRW.wrap(commandBuffer, 0, commandBuffer.capacity())
-                                 .correlationId(correlationId)
-                                 .nukleus(name())
-                                 .role(b -> b.set(role))
-                                 .localAddress(localAddress)
-                                 .remoteAddress(remoteAddress)
-                                 .extension(extension.buffer(), extension.offset(), extension.sizeof())
-                                 .build();
-
-        return controllerSpi.doRoute(routeRO.typeId(), routeRO.buffer(), routeRO.offset(), routeRO.sizeof());
+        private final RouteFW.Builder routeRW = new RouteFW.Builder();
+        private final UnrouteFW.Builder unrouteRW = new UnrouteFW.Builder();
+        private final FreezeFW.Builder freezeRW = new FreezeFW.Builder();
+
+        private final MutableDirectBuffer buffer =
+            new UnsafeBuffer(allocateDirect(SEQUENCE_LENGTH + MAX_SEND_LENGTH).order(nativeOrder()));
+
+        private RouteFW encodeRoute(
+            RouteKind kind,
+            String localAddress,
+            String remoteAddress)
+        {
+            final Role role = Role.valueOf(kind.ordinal());
+
+            return routeRW.wrap(buffer, SEQUENCE_LENGTH, SEQUENCE_LENGTH + MAX_SEND_LENGTH)
+                          .correlationId(controllerSpi.nextCorrelationId())
+                          .nukleus(name())
+                          .role(b -> b.set(role))
+                          .localAddress(localAddress)
+                          .remoteAddress(remoteAddress)
+                          .extension(EXTENSION_RO.buffer(), EXTENSION_RO.offset(), EXTENSION_RO.sizeof())
+                          .build();
+        }
+
+        private UnrouteFW encodeUnroute(
+            long routeId)
+        {
+            return unrouteRW.wrap(buffer, SEQUENCE_LENGTH, SEQUENCE_LENGTH + MAX_SEND_LENGTH)
+                            .correlationId(controllerSpi.nextCorrelationId())
+                            .nukleus(name())
+                            .routeId(routeId)
+                            .build();
+        }
+
+        private FreezeFW encodeFreeze()
+        {
+            return freezeRW.wrap(buffer, SEQUENCE_LENGTH, SEQUENCE_LENGTH + MAX_SEND_LENGTH)
+                           .correlationId(controllerSpi.nextCorrelationId())
+                           .nukleus(name())
+                           .build();
+        }
     }
 }
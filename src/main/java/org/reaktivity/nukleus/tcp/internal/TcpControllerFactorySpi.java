@@ -38,7 +38,9 @@ public final class TcpControllerFactorySpi implements ControllerFactorySpi<TcpCo
         Configuration config,
         ControllerBuilder<TcpController> builder)
     {
-        return builder.setFactory(TcpController::new)
+        final TcpConfiguration tcpConfig = new TcpConfiguration(config);
+
+        return builder.setFactory(spi -> new TcpController(tcpConfig, spi))
                       .build();
     }
 
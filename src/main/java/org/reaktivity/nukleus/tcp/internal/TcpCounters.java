@@ -26,17 +26,22 @@ public final class TcpCounters
     private final Function<String, LongSupplier> supplyCounter;
     private final Function<String, LongConsumer> supplyAccumulator;
     private final Long2ObjectHashMap<TcpRouteCounters> countersByRouteId;
+    private final boolean histograms;
+    private final StringBuilder name;
 
     public final LongConsumer connections;
 
     public TcpCounters(
         Function<String, LongSupplier> supplyCounter,
         Function<String, LongConsumer> supplyAccumulator,
-        Long2ObjectHashMap<TcpRouteCounters> countersByRouteId)
+        Long2ObjectHashMap<TcpRouteCounters> countersByRouteId,
+        boolean histograms)
     {
         this.supplyCounter = supplyCounter;
         this.supplyAccumulator = supplyAccumulator;
         this.countersByRouteId = countersByRouteId;
+        this.histograms = histograms;
+        this.name = new StringBuilder();
 
         this.connections = supplyAccumulator.apply("tcp.connections");
     }
@@ -47,6 +52,12 @@ public final class TcpCounters
         return countersByRouteId.computeIfAbsent(routeId, this::newRouteCounters);
     }
 
+    // nanosecond timestamp for recording latencies, avoiding the clock when histograms are disabled
+    public long timestamp()
+    {
+        return histograms ? System.nanoTime() : 0L;
+    }
+
     public TcpRouteCounters removeRoute(
         long routeId)
     {
@@ -56,6 +67,6 @@ public final class TcpCounters
     private TcpRouteCounters newRouteCounters(
         long routeId)
     {
-        return new TcpRouteCounters(routeId, supplyCounter, supplyAccumulator);
+        return new TcpRouteCounters(routeId, name, supplyCounter, supplyAccumulator, histograms);
     }
 }
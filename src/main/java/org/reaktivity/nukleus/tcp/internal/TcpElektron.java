@@ -15,11 +15,17 @@
  */
 package org.reaktivity.nukleus.tcp.internal;
 
+import static java.lang.Integer.parseInt;
 import static org.reaktivity.nukleus.route.RouteKind.CLIENT;
 import static org.reaktivity.nukleus.route.RouteKind.SERVER;
+import static org.reaktivity.nukleus.tcp.internal.util.IpUtil.CONNECT_HOST_AND_PORT_PATTERN;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
 
 import org.agrona.DirectBuffer;
 import org.agrona.collections.Long2ObjectHashMap;
@@ -27,45 +33,81 @@ import org.reaktivity.nukleus.Elektron;
 import org.reaktivity.nukleus.route.AddressFactoryBuilder;
 import org.reaktivity.nukleus.route.RouteKind;
 import org.reaktivity.nukleus.stream.StreamFactoryBuilder;
+import org.reaktivity.nukleus.tcp.internal.poller.EpollPoller;
+import org.reaktivity.nukleus.tcp.internal.poller.IoUringPoller;
+import org.reaktivity.nukleus.tcp.internal.poller.NioPoller;
 import org.reaktivity.nukleus.tcp.internal.poller.Poller;
+import org.reaktivity.nukleus.tcp.internal.resolver.Resolver;
 import org.reaktivity.nukleus.tcp.internal.stream.Acceptor;
 import org.reaktivity.nukleus.tcp.internal.stream.TcpAddressFactoryBuilder;
 import org.reaktivity.nukleus.tcp.internal.stream.TcpClientFactoryBuilder;
+import org.reaktivity.nukleus.tcp.internal.stream.TcpConnectPool;
 import org.reaktivity.nukleus.tcp.internal.stream.TcpServerFactoryBuilder;
+import org.reaktivity.nukleus.tcp.internal.types.control.RouteFW;
 import org.reaktivity.nukleus.tcp.internal.types.control.UnrouteFW;
+import org.reaktivity.nukleus.tcp.internal.util.CIDR;
 
 final class TcpElektron implements Elektron
 {
+    private final RouteFW routeRO = new RouteFW();
     private final UnrouteFW unrouteRO = new UnrouteFW();
 
     private final Acceptor acceptor;
     private final Poller poller;
+    private final Resolver resolver;
     private final Long2ObjectHashMap<TcpRouteCounters> countersByRouteId;
+    private final Long2ObjectHashMap<TcpConnectPool> connectPoolsByRouteId;
+    private final Long2ObjectHashMap<CIDR> cidrsByRouteId;
+    private final TcpServerFactoryBuilder serverFactoryBuilder;
+    private final TcpClientFactoryBuilder clientFactoryBuilder;
     private final Map<RouteKind, StreamFactoryBuilder> streamFactoryBuilders;
     private final Map<RouteKind, AddressFactoryBuilder> addressFactoryBuilders;
 
     TcpElektron(
-        TcpConfiguration config)
+        TcpConfiguration config,
+        int shard,
+        IntSupplier shards,
+        Executor resolverExecutor,
+        Runnable onClose)
     {
-        final Acceptor acceptor = new Acceptor(config);
-        Poller poller = new Poller();
+        final Acceptor acceptor = new Acceptor(config, shard, shards);
+        Poller poller = newPoller(config);
         acceptor.setPoller(poller);
 
+        final Resolver resolver = new Resolver(
+            resolverExecutor,
+            TimeUnit.SECONDS.toNanos(config.resolverCacheTtl()),
+            TimeUnit.SECONDS.toNanos(config.resolverNegativeCacheTtl()),
+            System::nanoTime);
+        poller.addCycleHandler(resolver::doWork);
+        poller.addCloseHandler(onClose);
+
         Long2ObjectHashMap<TcpRouteCounters> countersByRouteId = new Long2ObjectHashMap<>();
+        Long2ObjectHashMap<TcpConnectPool> connectPoolsByRouteId = new Long2ObjectHashMap<>();
+        Long2ObjectHashMap<CIDR> cidrsByRouteId = new Long2ObjectHashMap<>();
+
+        TcpServerFactoryBuilder serverFactoryBuilder = new TcpServerFactoryBuilder(config, countersByRouteId, acceptor, poller);
+        TcpClientFactoryBuilder clientFactoryBuilder =
+            new TcpClientFactoryBuilder(config, countersByRouteId, connectPoolsByRouteId, cidrsByRouteId, poller, resolver);
 
         Map<RouteKind, StreamFactoryBuilder> streamFactoryBuilders = new HashMap<>();
-        streamFactoryBuilders.put(SERVER, new TcpServerFactoryBuilder(config, countersByRouteId, acceptor, poller));
-        streamFactoryBuilders.put(CLIENT, new TcpClientFactoryBuilder(config, countersByRouteId, poller));
+        streamFactoryBuilders.put(SERVER, serverFactoryBuilder);
+        streamFactoryBuilders.put(CLIENT, clientFactoryBuilder);
 
         Map<RouteKind, AddressFactoryBuilder> addressFactoryBuilders = new HashMap<>();
         addressFactoryBuilders.put(SERVER, new TcpAddressFactoryBuilder(this::handleServerRouted));
-        addressFactoryBuilders.put(CLIENT, new TcpAddressFactoryBuilder(this::handleRouted));
+        addressFactoryBuilders.put(CLIENT, new TcpAddressFactoryBuilder(this::handleClientRouted));
 
         this.acceptor = acceptor;
         this.poller = poller;
+        this.resolver = resolver;
+        this.serverFactoryBuilder = serverFactoryBuilder;
+        this.clientFactoryBuilder = clientFactoryBuilder;
         this.streamFactoryBuilders = streamFactoryBuilders;
         this.addressFactoryBuilders = addressFactoryBuilders;
         this.countersByRouteId = countersByRouteId;
+        this.connectPoolsByRouteId = connectPoolsByRouteId;
+        this.cidrsByRouteId = cidrsByRouteId;
     }
 
     @Override
@@ -100,10 +142,40 @@ final class TcpElektron implements Elektron
         int index,
         int length)
     {
+        if (msgTypeId == RouteFW.TYPE_ID)
+        {
+            final RouteFW route = routeRO.wrap(buffer, index, index + length);
+            serverFactoryBuilder.supplyRouteCounters(route.correlationId());
+        }
+
         acceptor.handleRouted(msgTypeId, buffer, index, length);
         handleRouted(msgTypeId, buffer, index, length);
     }
 
+    private void handleClientRouted(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        switch (msgTypeId)
+        {
+        case RouteFW.TYPE_ID:
+            final RouteFW route = routeRO.wrap(buffer, index, index + length);
+            final Matcher matcher = CONNECT_HOST_AND_PORT_PATTERN.matcher(route.remoteAddress().asString());
+            if (matcher.matches() && !matcher.group(1).contains("/"))
+            {
+                // resolve ahead of the first connect, avoiding a deferred route for streams begun soon after
+                resolver.lookup(matcher.group(1));
+                clientFactoryBuilder.supplyConnectPool(route.correlationId(), matcher.group(1), parseInt(matcher.group(2)));
+            }
+            clientFactoryBuilder.supplyRouteCounters(route.correlationId());
+            break;
+        }
+
+        handleRouted(msgTypeId, buffer, index, length);
+    }
+
     private void handleRouted(
         int msgTypeId,
         DirectBuffer buffer,
@@ -116,8 +188,39 @@ final class TcpElektron implements Elektron
             final UnrouteFW unroute = unrouteRO.wrap(buffer, index, index + length);
             final long routeId = unroute.routeId();
             countersByRouteId.remove(routeId);
+            cidrsByRouteId.remove(routeId);
+
+            final TcpConnectPool connectPool = connectPoolsByRouteId.remove(routeId);
+            if (connectPool != null)
+            {
+                connectPool.close();
+            }
             break;
         }
     }
 
+    private static Poller newPoller(
+        TcpConfiguration config)
+    {
+        Poller poller = null;
+
+        switch (config.poller())
+        {
+        case "epoll":
+            if (EpollPoller.isAvailable())
+            {
+                poller = new EpollPoller(config.pollerMaxEvents());
+            }
+            break;
+        case "io_uring":
+            if (IoUringPoller.isAvailable())
+            {
+                poller = new IoUringPoller(config.pollerMaxEvents());
+            }
+            break;
+        }
+
+        return poller != null ? poller : new NioPoller();
+    }
+
 }
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal;
+
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Records values into power of two buckets, each exported as a counter named {@code <name>.<bucket>}
+ * counting values in {@code [2^(bucket-1), 2^bucket)}, alongside a {@code <name>.sum} accumulator.
+ * <p>
+ * Resolution is one power of two, so percentiles derived from the buckets are only accurate to within a factor of two.
+ * The last bucket also counts all larger values.
+ * <p>
+ * Bucket counters are supplied up front, so the first value recorded in a bucket does not allocate on the I/O thread,
+ * and readers see a stable set of counters.
+ */
+public final class TcpHistogram
+{
+    public static final TcpHistogram NONE = new TcpHistogram();
+
+    // up to 2^32 nanoseconds or bytes, roughly four seconds or four gigabytes
+    static final int BUCKETS = Integer.SIZE + 1;
+
+    private final LongSupplier[] buckets;
+    private final LongConsumer sum;
+
+    // reuses the route prefix already in the name buffer, appending the suffix and each bucket without intermediate strings
+    TcpHistogram(
+        StringBuilder name,
+        int prefix,
+        String suffix,
+        Function<String, LongSupplier> supplyCounter,
+        Function<String, LongConsumer> supplyAccumulator)
+    {
+        name.setLength(prefix);
+        final int bucketPrefix = name.append(suffix).append('.').length();
+
+        this.buckets = new LongSupplier[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            name.setLength(bucketPrefix);
+            buckets[bucket] = supplyCounter.apply(name.append(bucket).toString());
+        }
+
+        name.setLength(bucketPrefix);
+        this.sum = supplyAccumulator.apply(name.append("sum").toString());
+    }
+
+    private TcpHistogram()
+    {
+        this.buckets = null;
+        this.sum = null;
+    }
+
+    public void record(
+        long value)
+    {
+        if (buckets != null && value >= 0L)
+        {
+            final int bucket = Math.min(Long.SIZE - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+
+            buckets[bucket].getAsLong();
+            sum.accept(value);
+        }
+    }
+}
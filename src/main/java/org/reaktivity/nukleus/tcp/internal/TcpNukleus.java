@@ -15,6 +15,10 @@
  */
 package org.reaktivity.nukleus.tcp.internal;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.reaktivity.nukleus.Configuration;
 import org.reaktivity.nukleus.Elektron;
 import org.reaktivity.nukleus.Nukleus;
@@ -26,11 +30,17 @@ public final class TcpNukleus implements Nukleus
     public static final int WRITE_SPIN_COUNT = 16;
 
     private final TcpConfiguration config;
+    private final AtomicInteger shards;
+    private final AtomicInteger openElektrons;
+    private final ExecutorService resolverExecutor;
 
     TcpNukleus(
         TcpConfiguration config)
     {
         this.config = config;
+        this.shards = new AtomicInteger();
+        this.openElektrons = new AtomicInteger();
+        this.resolverExecutor = Executors.newFixedThreadPool(config.resolverThreads(), TcpNukleus::newResolverThread);
     }
 
     @Override
@@ -48,6 +58,24 @@ public final class TcpNukleus implements Nukleus
     @Override
     public Elektron supplyElektron()
     {
-        return new TcpElektron(config);
+        openElektrons.incrementAndGet();
+        return new TcpElektron(config, shards.getAndIncrement(), shards::get, resolverExecutor, this::onElektronClosed);
+    }
+
+    private void onElektronClosed()
+    {
+        // abandons pending lookups once the last poller closes, their completions are no longer polled
+        if (openElektrons.decrementAndGet() == 0)
+        {
+            resolverExecutor.shutdownNow();
+        }
+    }
+
+    private static Thread newResolverThread(
+        Runnable runnable)
+    {
+        final Thread thread = new Thread(runnable, String.format("nukleus-%s-resolver", NAME));
+        thread.setDaemon(true);
+        return thread;
     }
 }
@@ -23,6 +23,7 @@ public final class TcpRouteCounters
 {
     public final LongSupplier overflows;
     public final LongSupplier partials;
+    public final LongSupplier partialWrites;
 
     public final LongSupplier writeops;
     public final LongSupplier writeopsNoSlot;
@@ -40,29 +41,83 @@ public final class TcpRouteCounters
     public final LongSupplier abortsRead;
     public final LongSupplier resetsRead;
 
+    public final TcpHistogram connectTimes;
+    public final TcpHistogram acceptTimes;
+    public final TcpHistogram firstByteTimes;
+    public final TcpHistogram flushTimes;
+    public final TcpHistogram readSizes;
+    public final TcpHistogram writeSizes;
+    public final TcpHistogram queuedSizes;
+    public final TcpHistogram connectionReadSizes;
+    public final TcpHistogram connectionWriteSizes;
 
     TcpRouteCounters(
         long routeId,
+        StringBuilder name,
         Function<String, LongSupplier> supplyCounter,
-        Function<String, LongConsumer> supplyAccumulator)
+        Function<String, LongConsumer> supplyAccumulator,
+        boolean histograms)
     {
+        name.setLength(0);
+        final int prefix = name.append("tcp.").append(routeId).append('.').length();
+
         this.overflows = supplyCounter.apply("tcp.overflows");
         this.partials = supplyCounter.apply("tcp.partial.writes");
+        this.partialWrites = supplyCounter.apply(name(name, prefix, "partial.writes"));
+
+        this.writeopsNoSlot = supplyCounter.apply(name(name, prefix, "writeops.noslot"));
+        this.writeops = supplyCounter.apply(name(name, prefix, "writeops"));
+        this.readops = supplyCounter.apply(name(name, prefix, "readops"));
 
-        this.writeopsNoSlot = supplyCounter.apply(String.format("tcp.%d.writeops.noslot", routeId));
-        this.writeops = supplyCounter.apply(String.format("tcp.%d.writeops", routeId));
-        this.readops = supplyCounter.apply(String.format("tcp.%d.readops", routeId));
+        this.opensWritten = supplyCounter.apply(name(name, prefix, "opens.written"));
+        this.bytesWritten = supplyAccumulator.apply(name(name, prefix, "bytes.written"));
+        this.closesWritten = supplyCounter.apply(name(name, prefix, "closes.written"));
+        this.abortsWritten = supplyCounter.apply(name(name, prefix, "aborts.written"));
+        this.resetsWritten = supplyCounter.apply(name(name, prefix, "resets.written"));
 
-        this.opensWritten = supplyCounter.apply(String.format("tcp.%d.opens.written", routeId));
-        this.bytesWritten = supplyAccumulator.apply(String.format("tcp.%d.bytes.written", routeId));
-        this.closesWritten = supplyCounter.apply(String.format("tcp.%d.closes.written", routeId));
-        this.abortsWritten = supplyCounter.apply(String.format("tcp.%d.aborts.written", routeId));
-        this.resetsWritten = supplyCounter.apply(String.format("tcp.%d.resets.written", routeId));
+        this.opensRead = supplyCounter.apply(name(name, prefix, "opens.read"));
+        this.bytesRead = supplyAccumulator.apply(name(name, prefix, "bytes.read"));
+        this.closesRead = supplyCounter.apply(name(name, prefix, "closes.read"));
+        this.abortsRead = supplyCounter.apply(name(name, prefix, "aborts.read"));
+        this.resetsRead = supplyCounter.apply(name(name, prefix, "resets.read"));
 
-        this.opensRead = supplyCounter.apply(String.format("tcp.%d.opens.read", routeId));
-        this.bytesRead = supplyAccumulator.apply(String.format("tcp.%d.bytes.read", routeId));
-        this.closesRead = supplyCounter.apply(String.format("tcp.%d.closes.read", routeId));
-        this.abortsRead = supplyCounter.apply(String.format("tcp.%d.aborts.read", routeId));
-        this.resetsRead = supplyCounter.apply(String.format("tcp.%d.resets.read", routeId));
+        this.connectTimes = histograms
+            ? new TcpHistogram(name, prefix, "connect.nanos", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        this.acceptTimes = histograms
+            ? new TcpHistogram(name, prefix, "accept.nanos", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        this.firstByteTimes = histograms
+            ? new TcpHistogram(name, prefix, "first.byte.nanos", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        this.flushTimes = histograms
+            ? new TcpHistogram(name, prefix, "flush.nanos", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        // sizes at power of two resolution, see TcpHistogram, so connection totals beyond 4 GiB share the last bucket
+        this.readSizes = histograms
+            ? new TcpHistogram(name, prefix, "read.bytes", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        this.writeSizes = histograms
+            ? new TcpHistogram(name, prefix, "write.bytes", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        this.queuedSizes = histograms
+            ? new TcpHistogram(name, prefix, "queued.bytes", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        this.connectionReadSizes = histograms
+            ? new TcpHistogram(name, prefix, "connection.read.bytes", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+        this.connectionWriteSizes = histograms
+            ? new TcpHistogram(name, prefix, "connection.write.bytes", supplyCounter, supplyAccumulator)
+            : TcpHistogram.NONE;
+    }
+
+    // reuses the route prefix already in the buffer, replacing only the previous suffix
+    private static String name(
+        StringBuilder name,
+        int prefix,
+        String suffix)
+    {
+        name.setLength(prefix);
+        return name.append(suffix).toString();
     }
 }
@@ -0,0 +1,492 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static org.agrona.CloseHelper.quietClose;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.nio.channels.SelectableChannel;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import org.agrona.LangUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+
+/**
+ * Edge-triggered poller using the Linux epoll binding that ships with the JDK.
+ * <p>
+ * Requires {@code --add-opens java.base/sun.nio.ch=ALL-UNNAMED} (or the nukleus module name),
+ * otherwise {@link #isAvailable()} returns {@code false} and the NIO poller should be used instead.
+ * <p>
+ * Readiness reported by an edge is retained and re-dispatched on subsequent cycles until the
+ * handler for that operation reports no work done, or the operation is no longer of interest.
+ */
+public final class EpollPoller extends Poller
+{
+    private static final int EPOLLIN = 0x001;
+    private static final int EPOLLOUT = 0x004;
+    private static final int EPOLLERR = 0x008;
+    private static final int EPOLLHUP = 0x010;
+    private static final int EPOLLET = 1 << 31;
+
+    private static final int EPOLL_CTL_ADD = 1;
+    private static final int EPOLL_CTL_MOD = 3;
+
+    private static final int EEXIST = 17;
+
+    private static final EpollNative NATIVE = EpollNative.resolve();
+
+    private final int epfd;
+    private final long pollArray;
+    private final int maxEvents;
+    private final Int2ObjectHashMap<EpollPollerKey> keysByFd;
+
+    private EpollPollerKey[] readyKeys;
+    private int readyKeyCount;
+
+    public static boolean isAvailable()
+    {
+        return NATIVE != null;
+    }
+
+    public EpollPoller(
+        int maxEvents)
+    {
+        assert isAvailable();
+
+        this.epfd = NATIVE.create();
+        this.pollArray = NATIVE.allocatePollArray(maxEvents);
+        this.maxEvents = maxEvents;
+        this.keysByFd = new Int2ObjectHashMap<>();
+        this.readyKeys = new EpollPollerKey[16];
+    }
+
+    @Override
+    public void onClose()
+    {
+        keysByFd.values().forEach(k -> quietClose(k.channel()));
+        keysByFd.clear();
+
+        NATIVE.freePollArray(pollArray);
+        NATIVE.close(epfd);
+
+        super.onClose();
+    }
+
+    @Override
+    public PollerKey doRegister(
+        SelectableChannel channel,
+        int interestOps,
+        ToIntFunction<PollerKey> handler)
+    {
+        final int fd = NATIVE.fdVal(channel);
+
+        EpollPollerKey key = keysByFd.get(fd);
+        if (key == null || key.channel() != channel)
+        {
+            // descriptor may be reused after a previously registered channel was closed
+            int errno = NATIVE.ctl(epfd, EPOLL_CTL_ADD, fd, events(interestOps));
+            if (errno == EEXIST)
+            {
+                errno = NATIVE.ctl(epfd, EPOLL_CTL_MOD, fd, events(interestOps));
+            }
+
+            if (errno != 0)
+            {
+                LangUtil.rethrowUnchecked(new IOException(String.format("epoll_ctl failed, errno %d", errno)));
+            }
+
+            key = new EpollPollerKey(this, channel, fd, interestOps);
+            keysByFd.put(fd, key);
+        }
+
+        if (handler != null)
+        {
+            key.handler(interestOps, handler);
+        }
+
+        return key;
+    }
+
+    @Override
+    public void doClose(
+        SelectableChannel channel)
+    {
+        // the kernel drops a closed descriptor from the epoll set without reporting an event
+        if (channel != null && channel.isOpen())
+        {
+            final int fd = NATIVE.fdVal(channel);
+            final EpollPollerKey key = keysByFd.get(fd);
+            if (key != null && key.channel() == channel)
+            {
+                keysByFd.remove(fd);
+            }
+        }
+
+        quietClose(channel);
+    }
+
+    @Override
+    protected int doSelect()
+    {
+        final int eventCount = NATIVE.wait(epfd, pollArray, maxEvents);
+
+        for (int i = 0; i < eventCount; i++)
+        {
+            final long event = NATIVE.getEvent(pollArray, i);
+            final int fd = NATIVE.getDescriptor(event);
+            final EpollPollerKey key = keysByFd.get(fd);
+
+            if (key != null && key.onReady(readyOps(NATIVE.getEvents(event))))
+            {
+                if (readyKeyCount == readyKeys.length)
+                {
+                    readyKeys = Arrays.copyOf(readyKeys, readyKeys.length << 1);
+                }
+
+                readyKeys[readyKeyCount++] = key;
+            }
+        }
+
+        return doDispatch();
+    }
+
+    int keyCount()
+    {
+        return keysByFd.size();
+    }
+
+    void doInterestOps(
+        EpollPollerKey key,
+        int interestOps)
+    {
+        // modifying re-arms the edge, so any readiness already present is reported again
+        NATIVE.ctl(epfd, EPOLL_CTL_MOD, key.fd(), events(interestOps));
+    }
+
+    private int doDispatch()
+    {
+        int workDone = 0;
+        int pendingKeyCount = 0;
+
+        for (int i = 0; i < readyKeyCount; i++)
+        {
+            final EpollPollerKey key = readyKeys[i];
+            readyKeys[i] = null;
+
+            workDone += key.handleReady();
+
+            if (key.isPending())
+            {
+                readyKeys[pendingKeyCount++] = key;
+            }
+            else if (!key.isValid() && keysByFd.get(key.fd()) == key)
+            {
+                keysByFd.remove(key.fd());
+            }
+        }
+
+        readyKeyCount = pendingKeyCount;
+
+        return workDone;
+    }
+
+    private static int events(
+        int interestOps)
+    {
+        int events = EPOLLET;
+
+        if ((interestOps & (OP_ACCEPT | OP_READ)) != 0)
+        {
+            events |= EPOLLIN;
+        }
+
+        if ((interestOps & (OP_CONNECT | OP_WRITE)) != 0)
+        {
+            events |= EPOLLOUT;
+        }
+
+        return events;
+    }
+
+    private static int readyOps(
+        int events)
+    {
+        int readyOps = 0;
+
+        if ((events & (EPOLLERR | EPOLLHUP)) != 0)
+        {
+            // let the handlers observe the error, see SelectionKey
+            readyOps = OP_ACCEPT | OP_CONNECT | OP_READ | OP_WRITE;
+        }
+
+        if ((events & EPOLLIN) != 0)
+        {
+            readyOps |= OP_ACCEPT | OP_READ;
+        }
+
+        if ((events & EPOLLOUT) != 0)
+        {
+            readyOps |= OP_CONNECT | OP_WRITE;
+        }
+
+        return readyOps;
+    }
+
+    private static final class EpollNative
+    {
+        private final MethodHandle create;
+        private final MethodHandle ctl;
+        private final MethodHandle wait;
+        private final MethodHandle allocatePollArray;
+        private final MethodHandle freePollArray;
+        private final MethodHandle getEvent;
+        private final MethodHandle getDescriptor;
+        private final MethodHandle getEvents;
+        private final MethodHandle closeIntFD;
+        private final MethodHandle getFDVal;
+
+        private EpollNative() throws ReflectiveOperationException
+        {
+            // loads the nio native library that EPoll binds to
+            Class.forName("sun.nio.ch.IOUtil");
+
+            final Class<?> epoll = Class.forName("sun.nio.ch.EPoll");
+            final Class<?> selChImpl = Class.forName("sun.nio.ch.SelChImpl");
+            final Class<?> dispatcher = dispatcherClass();
+            final Lookup lookup = MethodHandles.privateLookupIn(epoll, MethodHandles.lookup());
+
+            this.create = lookup.findStatic(epoll, "create", methodType(int.class));
+            this.ctl = lookup.findStatic(epoll, "ctl", methodType(int.class, int.class, int.class, int.class, int.class));
+            this.wait = lookup.findStatic(epoll, "wait", methodType(int.class, int.class, long.class, int.class, int.class));
+            this.allocatePollArray = lookup.findStatic(epoll, "allocatePollArray", methodType(long.class, int.class));
+            this.freePollArray = lookup.findStatic(epoll, "freePollArray", methodType(void.class, long.class));
+            this.getEvent = lookup.findStatic(epoll, "getEvent", methodType(long.class, long.class, int.class));
+            this.getDescriptor = lookup.findStatic(epoll, "getDescriptor", methodType(int.class, long.class));
+            this.getEvents = lookup.findStatic(epoll, "getEvents", methodType(int.class, long.class));
+            this.closeIntFD = lookup.findStatic(dispatcher, "closeIntFD", methodType(void.class, int.class));
+            this.getFDVal = lookup.findVirtual(selChImpl, "getFDVal", methodType(int.class))
+                                  .asType(methodType(int.class, SelectableChannel.class));
+        }
+
+        int create()
+        {
+            int epfd = -1;
+
+            try
+            {
+                epfd = (int) create.invokeExact();
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return epfd;
+        }
+
+        int ctl(
+            int epfd,
+            int opcode,
+            int fd,
+            int events)
+        {
+            int errno = -1;
+
+            try
+            {
+                errno = (int) ctl.invokeExact(epfd, opcode, fd, events);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return errno;
+        }
+
+        int wait(
+            int epfd,
+            long pollArray,
+            int maxEvents)
+        {
+            int eventCount = 0;
+
+            try
+            {
+                eventCount = (int) wait.invokeExact(epfd, pollArray, maxEvents, 0);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return eventCount;
+        }
+
+        long allocatePollArray(
+            int maxEvents)
+        {
+            long pollArray = 0L;
+
+            try
+            {
+                pollArray = (long) allocatePollArray.invokeExact(maxEvents);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return pollArray;
+        }
+
+        void freePollArray(
+            long pollArray)
+        {
+            try
+            {
+                freePollArray.invokeExact(pollArray);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+        }
+
+        long getEvent(
+            long pollArray,
+            int index)
+        {
+            long event = 0L;
+
+            try
+            {
+                event = (long) getEvent.invokeExact(pollArray, index);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return event;
+        }
+
+        int getDescriptor(
+            long event)
+        {
+            int fd = -1;
+
+            try
+            {
+                fd = (int) getDescriptor.invokeExact(event);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return fd;
+        }
+
+        int getEvents(
+            long event)
+        {
+            int events = 0;
+
+            try
+            {
+                events = (int) getEvents.invokeExact(event);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return events;
+        }
+
+        void close(
+            int fd)
+        {
+            try
+            {
+                closeIntFD.invokeExact(fd);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+        }
+
+        int fdVal(
+            SelectableChannel channel)
+        {
+            int fd = -1;
+
+            try
+            {
+                fd = (int) getFDVal.invokeExact(channel);
+            }
+            catch (Throwable ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return fd;
+        }
+
+        private static Class<?> dispatcherClass() throws ClassNotFoundException
+        {
+            Class<?> dispatcher;
+
+            try
+            {
+                dispatcher = Class.forName("sun.nio.ch.UnixFileDispatcherImpl");
+            }
+            catch (ClassNotFoundException ex)
+            {
+                dispatcher = Class.forName("sun.nio.ch.FileDispatcherImpl");
+            }
+
+            return dispatcher;
+        }
+
+        private static EpollNative resolve()
+        {
+            EpollNative resolved = null;
+
+            try
+            {
+                resolved = new EpollNative();
+            }
+            catch (ReflectiveOperationException | RuntimeException | LinkageError ex)
+            {
+                // not Linux, or sun.nio.ch not opened to this module
+            }
+
+            return resolved;
+        }
+    }
+}
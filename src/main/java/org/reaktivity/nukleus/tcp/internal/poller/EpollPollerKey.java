@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+
+import java.nio.channels.SelectableChannel;
+
+final class EpollPollerKey extends PollerKey
+{
+    private static final int[] READY_OPS = { OP_ACCEPT, OP_CONNECT, OP_READ, OP_WRITE };
+
+    private final EpollPoller poller;
+    private final int fd;
+
+    private int readyOps;
+    private boolean pending;
+
+    EpollPollerKey(
+        EpollPoller poller,
+        SelectableChannel channel,
+        int fd,
+        int interestOps)
+    {
+        super(poller, channel, interestOps);
+        this.poller = poller;
+        this.fd = fd;
+    }
+
+    @Override
+    public boolean isValid()
+    {
+        return channel().isOpen();
+    }
+
+    @Override
+    void doInterestOps(
+        int interestOps)
+    {
+        if (isValid())
+        {
+            poller.doInterestOps(this, interestOps);
+        }
+    }
+
+    @Override
+    public void drained(
+        int drainedOps)
+    {
+        readyOps &= ~drainedOps;
+    }
+
+    int fd()
+    {
+        return fd;
+    }
+
+    boolean isPending()
+    {
+        return pending;
+    }
+
+    // @return true if the key was not already pending dispatch
+    boolean onReady(
+        int readyOps)
+    {
+        this.readyOps |= readyOps;
+
+        final boolean wasPending = pending;
+        pending = true;
+        return !wasPending;
+    }
+
+    int handleReady()
+    {
+        int workDone = 0;
+
+        if (isValid())
+        {
+            for (int i = 0; i < READY_OPS.length; i++)
+            {
+                final int readyOp = READY_OPS[i];
+                if ((readyOps & interestOps() & readyOp) != 0)
+                {
+                    final int opWorkDone = handleReadyOp(readyOp);
+                    if (opWorkDone == 0)
+                    {
+                        readyOps &= ~readyOp;
+                    }
+                    workDone += opWorkDone;
+                }
+            }
+
+            // readiness is reported again by the next edge when interest is restored
+            readyOps &= interestOps();
+        }
+        else
+        {
+            readyOps = 0;
+        }
+
+        pending = readyOps != 0;
+
+        return workDone;
+    }
+}
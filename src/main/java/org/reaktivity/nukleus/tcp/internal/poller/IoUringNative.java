@@ -0,0 +1,105 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SelectableChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JNI binding for {@link IoUringPoller}, built from {@code src/main/c} by the {@code io_uring} profile.
+ * <p>
+ * Negative return values are {@code -errno}.
+ */
+final class IoUringNative
+{
+    static final int COMPLETION_LENGTH = 16;
+    static final int COMPLETION_TOKEN_OFFSET = 0;
+    static final int COMPLETION_RESULT_OFFSET = 8;
+
+    private static final String LIBRARY_NAME = "nukleus-tcp-io-uring";
+
+    static final boolean AVAILABLE = load();
+
+    private IoUringNative()
+    {
+    }
+
+    static native int probe();
+
+    static native long create(
+        int entries);
+
+    static native void close(
+        long ring);
+
+    static native int pollAdd(
+        long ring,
+        int fd,
+        int events,
+        long token);
+
+    static native int pollRemove(
+        long ring,
+        long token);
+
+    static native int submit(
+        long ring);
+
+    static native int reap(
+        long ring,
+        long completions,
+        int maxCompletions);
+
+    static native int fd(
+        SelectableChannel channel);
+
+    private static boolean load()
+    {
+        boolean loaded = false;
+
+        try
+        {
+            final String fileName = System.mapLibraryName(LIBRARY_NAME);
+            try (InputStream library = IoUringNative.class.getResourceAsStream("/META-INF/native/" + fileName))
+            {
+                if (library != null)
+                {
+                    final Path path = Files.createTempFile(LIBRARY_NAME, fileName);
+                    path.toFile().deleteOnExit();
+                    Files.copy(library, path, REPLACE_EXISTING);
+                    System.load(path.toString());
+                }
+                else
+                {
+                    System.loadLibrary(LIBRARY_NAME);
+                }
+            }
+
+            loaded = probe() == 0;
+        }
+        catch (IOException | SecurityException | LinkageError ex)
+        {
+            // not Linux, native library not built, or io_uring disabled or lacking poll support
+        }
+
+        return loaded;
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static org.agrona.CloseHelper.quietClose;
+import static org.reaktivity.nukleus.tcp.internal.poller.IoUringNative.COMPLETION_LENGTH;
+import static org.reaktivity.nukleus.tcp.internal.poller.IoUringNative.COMPLETION_RESULT_OFFSET;
+import static org.reaktivity.nukleus.tcp.internal.poller.IoUringNative.COMPLETION_TOKEN_OFFSET;
+import static org.reaktivity.nukleus.tcp.internal.poller.IoUringPollerKey.NO_TOKEN;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import org.agrona.LangUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Poller using Linux io_uring, submitting one-shot poll requests for readiness.
+ * <p>
+ * Arming, re-arming and removing polls only queue submission entries, which are submitted together by
+ * a single {@code io_uring_enter} per cycle, and completions are reaped from the shared completion queue
+ * without a system call, so an idle cycle makes no system calls at all.
+ * <p>
+ * Each poll is re-armed after dispatch while its operations remain of interest, so readiness is
+ * level-triggered, as with the NIO poller.
+ * <p>
+ * Requires the native library built by the {@code io_uring} profile, otherwise {@link #isAvailable()}
+ * returns {@code false} and the NIO poller should be used instead.
+ */
+public final class IoUringPoller extends Poller
+{
+    private static final int POLLIN = 0x001;
+    private static final int POLLOUT = 0x004;
+    private static final int POLLERR = 0x008;
+    private static final int POLLHUP = 0x010;
+
+    private static final int ECANCELED = 125;
+
+    private final long ring;
+    private final UnsafeBuffer completions;
+    private final int maxCompletions;
+    private final Int2ObjectHashMap<IoUringPollerKey> keysByFd;
+    private final Long2ObjectHashMap<IoUringPollerKey> keysByToken;
+
+    private IoUringPollerKey[] readyKeys;
+    private int readyKeyCount;
+    private long nextToken;
+
+    public static boolean isAvailable()
+    {
+        return IoUringNative.AVAILABLE;
+    }
+
+    public IoUringPoller(
+        int entries)
+    {
+        assert isAvailable();
+
+        final long ring = IoUringNative.create(entries);
+        if (ring < 0)
+        {
+            LangUtil.rethrowUnchecked(new IOException(String.format("io_uring_setup failed, errno %d", -ring)));
+        }
+
+        this.ring = ring;
+        this.completions = new UnsafeBuffer(ByteBuffer.allocateDirect(entries * COMPLETION_LENGTH));
+        this.maxCompletions = entries;
+        this.keysByFd = new Int2ObjectHashMap<>();
+        this.keysByToken = new Long2ObjectHashMap<>();
+        this.readyKeys = new IoUringPollerKey[16];
+        this.nextToken = NO_TOKEN;
+    }
+
+    @Override
+    public void onClose()
+    {
+        keysByFd.values().forEach(k -> quietClose(k.channel()));
+        keysByFd.clear();
+        keysByToken.clear();
+
+        IoUringNative.close(ring);
+
+        super.onClose();
+    }
+
+    @Override
+    public PollerKey doRegister(
+        SelectableChannel channel,
+        int interestOps,
+        ToIntFunction<PollerKey> handler)
+    {
+        final int fd = IoUringNative.fd(channel);
+
+        IoUringPollerKey key = keysByFd.get(fd);
+        if (key == null || key.channel() != channel)
+        {
+            // descriptor may be reused after a previously registered channel was closed
+            if (key != null)
+            {
+                disarm(key);
+            }
+
+            key = new IoUringPollerKey(this, channel, fd, interestOps);
+            keysByFd.put(fd, key);
+
+            if (interestOps != 0)
+            {
+                arm(key, events(interestOps));
+            }
+        }
+
+        if (handler != null)
+        {
+            key.handler(interestOps, handler);
+        }
+
+        return key;
+    }
+
+    @Override
+    public void doClose(
+        SelectableChannel channel)
+    {
+        if (channel != null && channel.isOpen())
+        {
+            final int fd = IoUringNative.fd(channel);
+            final IoUringPollerKey key = keysByFd.get(fd);
+            if (key != null && key.channel() == channel)
+            {
+                keysByFd.remove(fd);
+
+                // an armed poll holds a reference to the socket, deferring FIN or unbind until removed
+                if (key.isArmed())
+                {
+                    disarm(key);
+                    IoUringNative.submit(ring);
+                }
+            }
+        }
+
+        quietClose(channel);
+    }
+
+    @Override
+    protected int doSelect()
+    {
+        int completionCount;
+
+        do
+        {
+            completionCount = IoUringNative.reap(ring, completions.addressOffset(), maxCompletions);
+
+            for (int i = 0; i < completionCount; i++)
+            {
+                final int offset = i * COMPLETION_LENGTH;
+                final long token = completions.getLong(offset + COMPLETION_TOKEN_OFFSET);
+                final int result = completions.getInt(offset + COMPLETION_RESULT_OFFSET);
+                final IoUringPollerKey key = token != NO_TOKEN ? keysByToken.remove(token) : null;
+
+                // completions of removed polls, and of the removals themselves, have no key
+                if (key != null)
+                {
+                    key.onDisarmed();
+
+                    if (result != -ECANCELED)
+                    {
+                        key.onReady(readyOps(result));
+
+                        if (readyKeyCount == readyKeys.length)
+                        {
+                            readyKeys = Arrays.copyOf(readyKeys, readyKeys.length << 1);
+                        }
+
+                        readyKeys[readyKeyCount++] = key;
+                    }
+                }
+            }
+        } while (completionCount == maxCompletions);
+
+        final int workDone = doDispatch();
+
+        // arms queued since the previous cycle, including re-arms after dispatch, in one system call
+        final int submitted = IoUringNative.submit(ring);
+        if (submitted < 0)
+        {
+            LangUtil.rethrowUnchecked(new IOException(String.format("io_uring_enter failed, errno %d", -submitted)));
+        }
+
+        return workDone;
+    }
+
+    int keyCount()
+    {
+        return keysByFd.size();
+    }
+
+    void doInterestOps(
+        IoUringPollerKey key,
+        int interestOps)
+    {
+        final int events = events(interestOps);
+
+        // polls armed for surplus events complete harmlessly, masked by interest on dispatch
+        if ((events & ~key.armedEvents()) != 0)
+        {
+            if (key.isArmed())
+            {
+                disarm(key);
+            }
+
+            arm(key, events);
+        }
+    }
+
+    private int doDispatch()
+    {
+        int workDone = 0;
+
+        for (int i = 0; i < readyKeyCount; i++)
+        {
+            final IoUringPollerKey key = readyKeys[i];
+            readyKeys[i] = null;
+
+            workDone += key.handleReady();
+
+            if (!key.isValid())
+            {
+                if (keysByFd.get(key.fd()) == key)
+                {
+                    keysByFd.remove(key.fd());
+                }
+            }
+            else if (!key.isArmed() && key.interestOps() != 0)
+            {
+                arm(key, events(key.interestOps()));
+            }
+        }
+
+        readyKeyCount = 0;
+
+        return workDone;
+    }
+
+    private void arm(
+        IoUringPollerKey key,
+        int events)
+    {
+        final long token = ++nextToken;
+
+        final int result = IoUringNative.pollAdd(ring, key.fd(), events, token);
+        if (result < 0)
+        {
+            LangUtil.rethrowUnchecked(new IOException(String.format("io_uring poll failed, errno %d", -result)));
+        }
+
+        keysByToken.put(token, key);
+        key.onArmed(token, events);
+    }
+
+    private void disarm(
+        IoUringPollerKey key)
+    {
+        final long token = key.token();
+
+        keysByToken.remove(token);
+        key.onDisarmed();
+
+        final int result = IoUringNative.pollRemove(ring, token);
+        if (result < 0)
+        {
+            LangUtil.rethrowUnchecked(new IOException(String.format("io_uring poll remove failed, errno %d", -result)));
+        }
+    }
+
+    private static int events(
+        int interestOps)
+    {
+        int events = 0;
+
+        if ((interestOps & (OP_ACCEPT | OP_READ)) != 0)
+        {
+            events |= POLLIN;
+        }
+
+        if ((interestOps & (OP_CONNECT | OP_WRITE)) != 0)
+        {
+            events |= POLLOUT;
+        }
+
+        return events;
+    }
+
+    private static int readyOps(
+        int result)
+    {
+        int readyOps = 0;
+
+        if (result < 0 || (result & (POLLERR | POLLHUP)) != 0)
+        {
+            // let the handlers observe the error, see SelectionKey
+            readyOps = OP_ACCEPT | OP_CONNECT | OP_READ | OP_WRITE;
+        }
+
+        if ((result & POLLIN) != 0)
+        {
+            readyOps |= OP_ACCEPT | OP_READ;
+        }
+
+        if ((result & POLLOUT) != 0)
+        {
+            readyOps |= OP_CONNECT | OP_WRITE;
+        }
+
+        return readyOps;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import java.nio.channels.SelectableChannel;
+
+final class IoUringPollerKey extends PollerKey
+{
+    static final long NO_TOKEN = 0L;
+
+    private final IoUringPoller poller;
+    private final int fd;
+
+    private long token;
+    private int armedEvents;
+    private int readyOps;
+
+    IoUringPollerKey(
+        IoUringPoller poller,
+        SelectableChannel channel,
+        int fd,
+        int interestOps)
+    {
+        super(poller, channel, interestOps);
+        this.poller = poller;
+        this.fd = fd;
+        this.token = NO_TOKEN;
+    }
+
+    @Override
+    public boolean isValid()
+    {
+        return channel().isOpen();
+    }
+
+    @Override
+    void doInterestOps(
+        int interestOps)
+    {
+        if (isValid())
+        {
+            poller.doInterestOps(this, interestOps);
+        }
+    }
+
+    int fd()
+    {
+        return fd;
+    }
+
+    long token()
+    {
+        return token;
+    }
+
+    int armedEvents()
+    {
+        return armedEvents;
+    }
+
+    boolean isArmed()
+    {
+        return token != NO_TOKEN;
+    }
+
+    void onArmed(
+        long token,
+        int armedEvents)
+    {
+        this.token = token;
+        this.armedEvents = armedEvents;
+    }
+
+    void onDisarmed()
+    {
+        this.token = NO_TOKEN;
+        this.armedEvents = 0;
+    }
+
+    void onReady(
+        int readyOps)
+    {
+        this.readyOps |= readyOps;
+    }
+
+    int handleReady()
+    {
+        final int readyOps = this.readyOps;
+        this.readyOps = 0;
+
+        return isValid() ? handleReady(readyOps) : 0;
+    }
+}
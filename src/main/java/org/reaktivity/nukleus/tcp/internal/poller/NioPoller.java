@@ -0,0 +1,150 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import static org.agrona.CloseHelper.quietClose;
+
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.util.function.ToIntFunction;
+
+import org.agrona.LangUtil;
+import org.agrona.nio.TransportPoller;
+
+public final class NioPoller extends Poller
+{
+    private final NioTransport transport;
+    private final ToIntFunction<SelectionKey> selectHandler;
+
+    public NioPoller()
+    {
+        this.transport = new NioTransport();
+        this.selectHandler = this::handleSelect;
+    }
+
+    @Override
+    public void onClose()
+    {
+        transport.close();
+
+        super.onClose();
+    }
+
+    @Override
+    public PollerKey doRegister(
+        SelectableChannel channel,
+        int interestOps,
+        ToIntFunction<PollerKey> handler)
+    {
+        return transport.doRegister(channel, interestOps, handler);
+    }
+
+    @Override
+    public void doClose(
+        SelectableChannel channel)
+    {
+        // closing cancels the selection key, deregistered by the next select
+        quietClose(channel);
+    }
+
+    @Override
+    protected int doSelect()
+    {
+        return transport.doSelect();
+    }
+
+    private int handleSelect(
+        SelectionKey key)
+    {
+        final NioPollerKey attachment = attachment(key);
+        return attachment.handleSelect();
+    }
+
+    private static NioPollerKey attachment(
+        SelectionKey key)
+    {
+        return (NioPollerKey) key.attachment();
+    }
+
+    private final class NioTransport extends TransportPoller
+    {
+        private int doSelect()
+        {
+            int workDone = 0;
+
+            try
+            {
+                if (selector.selectNow() != 0)
+                {
+                    workDone = selectedKeySet.forEach(selectHandler);
+                }
+            }
+            catch (Throwable ex)
+            {
+                selectedKeySet.reset();
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return workDone;
+        }
+
+        private PollerKey doRegister(
+            SelectableChannel channel,
+            int interestOps,
+            ToIntFunction<PollerKey> handler)
+        {
+            PollerKey pollerKey = null;
+
+            try
+            {
+                SelectionKey key = channel.keyFor(selector);
+                if (key == null)
+                {
+                    key = channel.register(selector, interestOps, null);
+                    key.attach(new NioPollerKey(NioPoller.this, key));
+                }
+
+                pollerKey = attachment(key);
+
+                if (handler != null)
+                {
+                    pollerKey.handler(interestOps, handler);
+                }
+            }
+            catch (ClosedChannelException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+
+            return pollerKey;
+        }
+
+        @Override
+        public void close()
+        {
+            for (SelectionKey key : selector.keys())
+            {
+                quietClose(key.channel());
+            }
+
+            // Allow proper cleanup on platforms like Windows
+            selectNowWithoutProcessing();
+
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import java.nio.channels.SelectionKey;
+
+final class NioPollerKey extends PollerKey
+{
+    private final SelectionKey key;
+
+    NioPollerKey(
+        Poller poller,
+        SelectionKey key)
+    {
+        super(poller, key.channel(), key.interestOps());
+        this.key = key;
+    }
+
+    @Override
+    public boolean isValid()
+    {
+        return key.isValid();
+    }
+
+    @Override
+    void doInterestOps(
+        int interestOps)
+    {
+        key.interestOps(interestOps);
+    }
+
+    int handleSelect()
+    {
+        return handleReady(key.readyOps());
+    }
+}
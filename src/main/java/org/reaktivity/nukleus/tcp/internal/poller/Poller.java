@@ -15,114 +15,176 @@
  */
 package org.reaktivity.nukleus.tcp.internal.poller;
 
-import static org.agrona.CloseHelper.quietClose;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
-import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
-import java.nio.channels.SelectionKey;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
 import java.util.function.ToIntFunction;
-import java.util.stream.Stream;
 
-import org.agrona.LangUtil;
+import org.agrona.DeadlineTimerWheel;
+import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.Agent;
-import org.agrona.nio.TransportPoller;
 
-public final class Poller extends TransportPoller implements Agent
+public abstract class Poller implements Agent
 {
-    private final ToIntFunction<SelectionKey> selectHandler;
+    public static final long NO_TIMER = DeadlineTimerWheel.NULL_DEADLINE;
 
-    public Poller()
+    // power of two nanoseconds, roughly one millisecond
+    private static final long TIMER_TICK_RESOLUTION = 1L << 20;
+    private static final int TIMER_TICKS_PER_WHEEL = 512;
+
+    private final DeadlineTimerWheel timerWheel;
+    private final Long2ObjectHashMap<Runnable> timerHandlers;
+    private final DeadlineTimerWheel.TimerHandler expireTimer;
+
+    private PollerKey[] flushKeys;
+    private int flushKeyCount;
+    private IntSupplier[] cycleHandlers;
+    private Runnable[] closeHandlers;
+
+    protected Poller()
     {
-        this.selectHandler = this::handleSelect;
+        this.flushKeys = new PollerKey[16];
+        this.cycleHandlers = new IntSupplier[0];
+        this.closeHandlers = new Runnable[0];
+        this.timerWheel = new DeadlineTimerWheel(NANOSECONDS, System.nanoTime(), TIMER_TICK_RESOLUTION, TIMER_TICKS_PER_WHEEL);
+        this.timerHandlers = new Long2ObjectHashMap<>();
+        this.expireTimer = this::onTimerExpiry;
     }
 
     @Override
-    public int doWork()
+    public final int doWork()
     {
-        int workDone = 0;
+        int workDone = doFlush();
 
-        try
-        {
-            if (selector.selectNow() != 0)
-            {
-                workDone = selectedKeySet.forEach(selectHandler);
-            }
-        }
-        catch (Throwable ex)
+        workDone += doSelect();
+
+        workDone += doExpireTimers();
+
+        for (int i = 0; i < cycleHandlers.length; i++)
         {
-            selectedKeySet.reset();
-            LangUtil.rethrowUnchecked(ex);
+            workDone += cycleHandlers[i].getAsInt();
         }
 
         return workDone;
     }
 
+    @Override
+    public void onClose()
+    {
+        for (int i = 0; i < closeHandlers.length; i++)
+        {
+            closeHandlers[i].run();
+        }
+    }
+
     @Override
     public String roleName()
     {
         return "poller";
     }
 
-    @Override
-    public void onClose()
+    public abstract PollerKey doRegister(
+        SelectableChannel channel,
+        int interestOps,
+        ToIntFunction<PollerKey> handler);
+
+    // releases any registration of the channel, then closes it quietly
+    public abstract void doClose(
+        SelectableChannel channel);
+
+    // invoked on the poller thread every cycle, for work completed elsewhere such as host name lookups
+    public void addCycleHandler(
+        IntSupplier handler)
+    {
+        cycleHandlers = Arrays.copyOf(cycleHandlers, cycleHandlers.length + 1);
+        cycleHandlers[cycleHandlers.length - 1] = handler;
+    }
+
+    // invoked on the poller thread when the agent closes, after registered channels are closed
+    public void addCloseHandler(
+        Runnable handler)
     {
-        for (SelectionKey key : selector.keys())
+        closeHandlers = Arrays.copyOf(closeHandlers, closeHandlers.length + 1);
+        closeHandlers[closeHandlers.length - 1] = handler;
+    }
+
+    // invokes the handler on the poller thread once the delay elapses, unless cancelled
+    public long scheduleTimer(
+        long delayNanos,
+        Runnable handler)
+    {
+        final long now = System.nanoTime();
+
+        if (timerWheel.timerCount() == 0)
         {
-            quietClose(key.channel());
+            // an empty wheel is not polled, so its tick is brought up to date before use
+            timerWheel.resetStartTime(now);
         }
 
-        // Allow proper cleanup on platforms like Windows
-        selectNowWithoutProcessing();
-
-        super.close();
+        final long timerId = timerWheel.scheduleTimer(now + delayNanos);
+        timerHandlers.put(timerId, handler);
+        return timerId;
     }
 
-    public PollerKey doRegister(
-        SelectableChannel channel,
-        int interestOps,
-        ToIntFunction<PollerKey> handler)
+    public void cancelTimer(
+        long timerId)
     {
-        PollerKey pollerKey = null;
-
-        try
+        if (timerHandlers.remove(timerId) != null)
         {
-            SelectionKey key = channel.keyFor(selector);
-            if (key == null)
-            {
-                key = channel.register(selector, interestOps, null);
-                key.attach(new PollerKey(key));
-            }
-
-            pollerKey = attachment(key);
-
-            if (handler != null)
-            {
-                pollerKey.handler(interestOps, handler);
-            }
+            timerWheel.cancelTimer(timerId);
         }
-        catch (ClosedChannelException ex)
+    }
+
+    // selects without blocking and dispatches ready keys to their handlers
+    protected abstract int doSelect();
+
+    void scheduleFlush(
+        PollerKey key)
+    {
+        if (flushKeyCount == flushKeys.length)
         {
-            LangUtil.rethrowUnchecked(ex);
+            flushKeys = Arrays.copyOf(flushKeys, flushKeys.length << 1);
         }
 
-        return pollerKey;
+        flushKeys[flushKeyCount++] = key;
     }
 
-    public Stream<PollerKey> keys()
+    private int doExpireTimers()
     {
-        return selector.keys().stream().map(k -> attachment(k));
+        return timerWheel.timerCount() != 0 ? timerWheel.poll(System.nanoTime(), expireTimer, Integer.MAX_VALUE) : 0;
     }
 
-    private int handleSelect(
-        SelectionKey key)
+    private boolean onTimerExpiry(
+        TimeUnit timeUnit,
+        long now,
+        long timerId)
     {
-        final PollerKey attachment = attachment(key);
-        return attachment.handleSelect(key);
+        final Runnable handler = timerHandlers.remove(timerId);
+
+        if (handler != null)
+        {
+            handler.run();
+        }
+
+        return true;
     }
 
-    private static PollerKey attachment(
-        SelectionKey key)
+    private int doFlush()
     {
-        return (PollerKey) key.attachment();
+        int workDone = 0;
+
+        for (int i = 0; i < flushKeyCount; i++)
+        {
+            final PollerKey key = flushKeys[i];
+            flushKeys[i] = null;
+            workDone += key.handleFlush();
+        }
+
+        flushKeyCount = 0;
+
+        return workDone;
     }
 }
@@ -21,35 +21,37 @@ import static java.nio.channels.SelectionKey.OP_READ;
 import static java.nio.channels.SelectionKey.OP_WRITE;
 
 import java.nio.channels.SelectableChannel;
-import java.nio.channels.SelectionKey;
 import java.util.function.ToIntFunction;
 
-public final class PollerKey
+public abstract class PollerKey
 {
     private ToIntFunction<PollerKey> acceptHandler = PollerKey::nop;
     private ToIntFunction<PollerKey> connectHandler = PollerKey::nop;
     private ToIntFunction<PollerKey> readHandler = PollerKey::nop;
     private ToIntFunction<PollerKey> writeHandler = PollerKey::nop;
+    private ToIntFunction<PollerKey> flushHandler = PollerKey::nop;
 
-    private final SelectionKey key;
+    private final Poller poller;
+    private final SelectableChannel channel;
     private int interestOps;
+    private boolean flushScheduled;
 
     PollerKey(
-        SelectionKey key)
+        Poller poller,
+        SelectableChannel channel,
+        int interestOps)
     {
-        this.key = key;
-        this.interestOps = key.interestOps();
+        this.poller = poller;
+        this.channel = channel;
+        this.interestOps = interestOps;
     }
 
     public SelectableChannel channel()
     {
-        return key.channel();
+        return channel;
     }
 
-    public boolean isValid()
-    {
-        return key.isValid();
-    }
+    public abstract boolean isValid();
 
     public void register(
         int registerOps)
@@ -57,7 +59,7 @@ public final class PollerKey
         final int newInterestOps = interestOps | registerOps;
         if (newInterestOps != interestOps)
         {
-            key.interestOps(newInterestOps);
+            doInterestOps(newInterestOps);
             interestOps = newInterestOps;
         }
     }
@@ -68,11 +70,17 @@ public final class PollerKey
         final int newInterestOps = interestOps & ~clearOps;
         if (newInterestOps != interestOps)
         {
-            key.interestOps(newInterestOps);
+            doInterestOps(newInterestOps);
             interestOps = newInterestOps;
         }
     }
 
+    public boolean isRegistered(
+        int ops)
+    {
+        return (interestOps & ops) == ops;
+    }
+
     public void handler(
         final int handlerOps,
         final ToIntFunction<PollerKey> handler)
@@ -98,32 +106,97 @@ public final class PollerKey
         }
     }
 
-    int handleSelect(
-        SelectionKey key)
+    // signals readiness for these ops is exhausted, sparing edge-triggered pollers a syscall to discover it
+    public void drained(
+        int drainedOps)
+    {
+    }
+
+    public void flushHandler(
+        final ToIntFunction<PollerKey> handler)
+    {
+        flushHandler = (handler != null) ? handler : PollerKey::nop;
+    }
+
+    // invokes the flush handler once at the start of the next poller cycle
+    public void scheduleFlush()
+    {
+        if (!flushScheduled)
+        {
+            poller.scheduleFlush(this);
+            flushScheduled = true;
+        }
+    }
+
+    public boolean isFlushScheduled()
+    {
+        return flushScheduled;
+    }
+
+    int handleFlush()
+    {
+        flushScheduled = false;
+        return isValid() ? flushHandler.applyAsInt(this) : 0;
+    }
+
+    int interestOps()
+    {
+        return interestOps;
+    }
+
+    abstract void doInterestOps(
+        int interestOps);
+
+    int handleReady(
+        int readyOps)
     {
         // guarantee ready set matches interest ops, see SelectionKey
-        final int readyOps = key.readyOps() & this.interestOps;
+        final int interestReadyOps = readyOps & this.interestOps;
 
         int workDone = 0;
 
-        if ((readyOps & SelectionKey.OP_ACCEPT) != 0)
+        if ((interestReadyOps & OP_ACCEPT) != 0)
         {
-            workDone += acceptHandler.applyAsInt(this);
+            workDone += handleReadyOp(OP_ACCEPT);
         }
 
-        if ((readyOps & SelectionKey.OP_CONNECT) != 0)
+        if ((interestReadyOps & OP_CONNECT) != 0)
         {
-            workDone += connectHandler.applyAsInt(this);
+            workDone += handleReadyOp(OP_CONNECT);
         }
 
-        if ((readyOps & SelectionKey.OP_READ) != 0)
+        if ((interestReadyOps & OP_READ) != 0)
         {
-            workDone += readHandler.applyAsInt(this);
+            workDone += handleReadyOp(OP_READ);
         }
 
-        if ((readyOps & SelectionKey.OP_WRITE) != 0)
+        if ((interestReadyOps & OP_WRITE) != 0)
+        {
+            workDone += handleReadyOp(OP_WRITE);
+        }
+
+        return workDone;
+    }
+
+    int handleReadyOp(
+        int readyOp)
+    {
+        int workDone = 0;
+
+        switch (readyOp)
         {
-            workDone += writeHandler.applyAsInt(this);
+        case OP_ACCEPT:
+            workDone = acceptHandler.applyAsInt(this);
+            break;
+        case OP_CONNECT:
+            workDone = connectHandler.applyAsInt(this);
+            break;
+        case OP_READ:
+            workDone = readHandler.applyAsInt(this);
+            break;
+        case OP_WRITE:
+            workDone = writeHandler.applyAsInt(this);
+            break;
         }
 
         return workDone;
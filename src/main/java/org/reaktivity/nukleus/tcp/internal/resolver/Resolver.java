@@ -0,0 +1,299 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.resolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.agrona.concurrent.ManyToOneConcurrentLinkedQueue;
+
+/**
+ * Resolves host names off the poller thread, caching positive and negative results.
+ * <p>
+ * Lookups run on the supplied {@code Executor}, and completions are delivered on the poller thread by {@link #doWork()}.
+ * Expired entries keep serving their previous addresses while being refreshed.
+ */
+public final class Resolver
+{
+    private static final InetAddress[] UNRESOLVED = new InetAddress[0];
+
+    static final int MAXIMUM_ENTRIES = 4096;
+
+    private final Executor executor;
+    private final Lookup lookup;
+    private final long ttl;
+    private final long negativeTtl;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry> entriesByHost;
+    private final ManyToOneConcurrentLinkedQueue<Entry> completions;
+
+    public Resolver(
+        Executor executor,
+        long ttl,
+        long negativeTtl,
+        LongSupplier nanoClock)
+    {
+        this(executor, InetAddress::getAllByName, ttl, negativeTtl, nanoClock);
+    }
+
+    public Resolver(
+        Executor executor,
+        Lookup lookup,
+        long ttl,
+        long negativeTtl,
+        LongSupplier nanoClock)
+    {
+        this.executor = executor;
+        this.lookup = lookup;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.nanoClock = nanoClock;
+        this.entriesByHost = new HashMap<>();
+        this.completions = new ManyToOneConcurrentLinkedQueue<>();
+    }
+
+    // @return cached addresses, empty if unresolvable, or null while resolving for the first time
+    public InetAddress[] lookup(
+        String host)
+    {
+        Entry entry = entriesByHost.get(host);
+
+        if (entry == null)
+        {
+            entry = newEntry(host);
+        }
+
+        if (!entry.resolving && entry.expiresAt - nanoClock.getAsLong() <= 0L)
+        {
+            entry.resolving = true;
+
+            try
+            {
+                executor.execute(entry);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                // executor shut down, complete as unresolved rather than leave the entry resolving
+                entry.resolved = UNRESOLVED;
+                completions.offer(entry);
+            }
+        }
+
+        return entry.addresses;
+    }
+
+    // invokes the handler immediately if cached, otherwise on the poller thread when resolved
+    public void resolve(
+        String host,
+        Consumer<InetAddress[]> handler)
+    {
+        final InetAddress[] addresses = lookup(host);
+
+        if (addresses != null)
+        {
+            handler.accept(addresses);
+        }
+        else
+        {
+            entriesByHost.get(host).handlers.add(handler);
+        }
+    }
+
+    public void cancel(
+        String host,
+        Consumer<InetAddress[]> handler)
+    {
+        final Entry entry = entriesByHost.get(host);
+
+        if (entry != null)
+        {
+            entry.handlers.remove(handler);
+        }
+    }
+
+    public int doWork()
+    {
+        int workDone = 0;
+
+        for (Entry entry = completions.poll(); entry != null; entry = completions.poll())
+        {
+            final InetAddress[] addresses = entry.resolved;
+
+            entry.addresses = addresses;
+            entry.expiresAt = nanoClock.getAsLong() + (addresses.length != 0 ? ttl : negativeTtl);
+            entry.resolving = false;
+
+            final List<Consumer<InetAddress[]>> handlers = entry.handlers;
+            entry.handlers = entry.completing;
+            entry.completing = handlers;
+
+            for (int i = 0; i < handlers.size(); i++)
+            {
+                handlers.get(i).accept(addresses);
+            }
+            handlers.clear();
+
+            workDone++;
+        }
+
+        return workDone;
+    }
+
+    private Entry newEntry(
+        String host)
+    {
+        if (entriesByHost.size() >= MAXIMUM_ENTRIES)
+        {
+            purgeExpired();
+        }
+
+        if (entriesByHost.size() >= MAXIMUM_ENTRIES)
+        {
+            evictEarliestExpiring();
+        }
+
+        final Entry entry = new Entry(host);
+        entry.expiresAt = nanoClock.getAsLong();
+
+        if (isLiteral(host))
+        {
+            // literal addresses are parsed without a lookup, see InetAddress#getAllByName
+            entry.addresses = entry.lookup();
+            entry.expiresAt = Long.MAX_VALUE;
+        }
+
+        entriesByHost.put(host, entry);
+
+        return entry;
+    }
+
+    private void purgeExpired()
+    {
+        final long now = nanoClock.getAsLong();
+
+        for (Iterator<Entry> i = entriesByHost.values().iterator(); i.hasNext(); )
+        {
+            final Entry entry = i.next();
+            if (!entry.resolving && entry.handlers.isEmpty() && entry.expiresAt - now <= 0L)
+            {
+                i.remove();
+            }
+        }
+    }
+
+    // entries still resolving or awaited by handlers are never evicted, so in-flight lookups may exceed the maximum
+    private void evictEarliestExpiring()
+    {
+        Entry evict = null;
+
+        for (Entry entry : entriesByHost.values())
+        {
+            if (!entry.resolving && entry.handlers.isEmpty() &&
+                (evict == null || entry.expiresAt - evict.expiresAt < 0L))
+            {
+                evict = entry;
+            }
+        }
+
+        if (evict != null)
+        {
+            entriesByHost.remove(evict.host);
+        }
+    }
+
+    int entryCount()
+    {
+        return entriesByHost.size();
+    }
+
+    private static boolean isLiteral(
+        String host)
+    {
+        boolean literal = host.indexOf(':') != -1;
+
+        if (!literal)
+        {
+            literal = true;
+            for (int i = 0; literal && i < host.length(); i++)
+            {
+                final char ch = host.charAt(i);
+                literal = ch == '.' || Character.isDigit(ch);
+            }
+        }
+
+        return literal;
+    }
+
+    @FunctionalInterface
+    public interface Lookup
+    {
+        InetAddress[] getAllByName(
+            String host) throws UnknownHostException;
+    }
+
+    private final class Entry implements Runnable
+    {
+        private final String host;
+
+        private InetAddress[] addresses;
+        private volatile InetAddress[] resolved;
+        private long expiresAt;
+        private boolean resolving;
+        private List<Consumer<InetAddress[]>> handlers;
+        private List<Consumer<InetAddress[]>> completing;
+
+        private Entry(
+            String host)
+        {
+            this.host = host;
+            this.handlers = new ArrayList<>();
+            this.completing = new ArrayList<>();
+        }
+
+        @Override
+        public void run()
+        {
+            resolved = lookup();
+            completions.offer(this);
+        }
+
+        private InetAddress[] lookup()
+        {
+            InetAddress[] addresses;
+
+            try
+            {
+                addresses = lookup.getAllByName(host);
+            }
+            catch (Exception ex)
+            {
+                // any failure completes the lookup, otherwise the entry would stay resolving forever
+                addresses = UNRESOLVED;
+            }
+
+            return addresses;
+        }
+    }
+}
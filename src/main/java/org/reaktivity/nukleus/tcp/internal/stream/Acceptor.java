@@ -26,21 +26,20 @@ import static org.reaktivity.nukleus.tcp.internal.util.IpUtil.compareAddresses;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.SocketAddress;
-import java.nio.channels.NetworkChannel;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.Optional;
-import java.util.function.Function;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
 import java.util.function.ToIntFunction;
 import java.util.regex.Matcher;
 
-import org.agrona.CloseHelper;
 import org.agrona.DirectBuffer;
 import org.agrona.LangUtil;
 import org.agrona.collections.Long2ObjectHashMap;
-import org.agrona.collections.MutableInteger;
-import org.reaktivity.nukleus.route.RouteManager;
+import org.agrona.collections.Object2IntHashMap;
 import org.reaktivity.nukleus.tcp.internal.TcpConfiguration;
 import org.reaktivity.nukleus.tcp.internal.poller.Poller;
 import org.reaktivity.nukleus.tcp.internal.poller.PollerKey;
@@ -50,6 +49,18 @@ import org.reaktivity.nukleus.tcp.internal.types.control.UnrouteFW;
 
 /**
  * The {@code Acceptor} accepts new socket connections and informs the {@code Router}.
+ * <p>
+ * Each elektron has its own {@code Acceptor} binding the same local addresses with {@code SO_REUSEPORT},
+ * so the kernel spreads incoming connections across shards, each accepting up to its share of max connections.
+ * Reaching that share pauses accept readiness on every listener until a connection closes.
+ * <p>
+ * Paused listeners stay bound, since unbinding would reset the connections already queued in the backlog.
+ * The kernel keeps spreading new connections to a full shard even while other shards have room, and those
+ * connections wait in its backlog until it resumes, so {@code max.connections} should leave each shard's share
+ * enough headroom for uneven spreading.
+ * <p>
+ * Each listener accepts up to its budget per poller cycle and, when rate limited, only as many connections
+ * as its token bucket allows, leaving the rest in the kernel backlog so established connections keep being serviced.
  */
 public final class Acceptor
 {
@@ -60,25 +71,35 @@ public final class Acceptor
     private final boolean keepalive;
     private final boolean nodelay;
     private final Long2ObjectHashMap<InetSocketAddress> localAddressByRouteId;
-    private final Function<SocketAddress, PollerKey> registerHandler;
-    private final ToIntFunction<PollerKey> acceptHandler;
-    private final MutableInteger remainingConnections;
+    private final Long2ObjectHashMap<Listener> listenersByRouteId;
+    private final Map<InetSocketAddress, Listener> listenersByAddress;
+    private final int maxConnections;
+    private final int acceptBudget;
+    private final int acceptRate;
+    private final int shard;
+    private final IntSupplier shards;
 
     private Poller poller;
     private TcpServerFactory serverFactory;
-    private RouteManager router;
-    private boolean unbound;
+    private boolean paused;
+    private int connections;
 
     public Acceptor(
-        TcpConfiguration config)
+        TcpConfiguration config,
+        int shard,
+        IntSupplier shards)
     {
         this.backlog = config.maximumBacklog();
         this.keepalive = config.keepalive();
         this.nodelay = config.nodelay();
-        this.remainingConnections = new MutableInteger(config.maxConnections());
+        this.maxConnections = config.maxConnections();
+        this.acceptBudget = config.acceptBudget() > 0 ? config.acceptBudget() : Integer.MAX_VALUE;
+        this.acceptRate = config.acceptRate();
+        this.shard = shard;
+        this.shards = shards;
         this.localAddressByRouteId = new Long2ObjectHashMap<>();
-        this.registerHandler = this::handleRegister;
-        this.acceptHandler = this::handleAccept;
+        this.listenersByRouteId = new Long2ObjectHashMap<>();
+        this.listenersByAddress = new HashMap<>();
     }
 
     public void setPoller(
@@ -116,12 +137,6 @@ public final class Acceptor
         this.serverFactory = serverFactory;
     }
 
-    void setRouter(
-        RouteManager router)
-    {
-        this.router = router;
-    }
-
     private boolean doRegister(
         long routeId,
         String localAddressAndPort)
@@ -138,10 +153,14 @@ public final class Acceptor
             final int port = Integer.parseInt(matcher.group(2));
             final InetAddress address = InetAddress.getByName(hostname);
             final InetSocketAddress localAddress = new InetSocketAddress(address, port);
-            findOrRegisterKey(localAddress);
 
-            // TODO: maintain register count
-            localAddressByRouteId.putIfAbsent(routeId, localAddress);
+            if (!listenersByRouteId.containsKey(routeId))
+            {
+                final Listener listener = findOrRegisterListener(localAddress);
+                localAddressByRouteId.put(routeId, localAddress);
+                listenersByRouteId.put(routeId, listener);
+                listener.addRoute(routeId);
+            }
         }
         catch (Exception ex)
         {
@@ -156,13 +175,17 @@ public final class Acceptor
         boolean result = false;
         try
         {
-            final InetSocketAddress localAddress = localAddressByRouteId.remove(routeId);
-            if (localAddress != null)
+            final Listener listener = listenersByRouteId.remove(routeId);
+            if (listener != null)
             {
-                final PollerKey key = findRegisteredKey(localAddress);
+                localAddressByRouteId.remove(routeId);
 
-                // TODO: maintain count for auto close when unregistered for last time
-                CloseHelper.quietClose(key.channel());
+                if (listener.removeRoute(routeId) == 0)
+                {
+                    listenersByAddress.remove(listener.address);
+                    listener.cancelResume();
+                    poller.doClose(listener.key.channel());
+                }
                 result = true;
             }
         }
@@ -174,29 +197,45 @@ public final class Acceptor
     }
 
     private int handleAccept(
+        Listener listener,
         PollerKey key)
     {
+        int workDone = 0;
+
         try
         {
             final ServerSocketChannel serverChannel = channel(key);
+            final int budget = Math.min(acceptBudget, listener.acquireTokens());
 
-            for (SocketChannel channel = accept(serverChannel); channel != null; channel = accept(serverChannel))
+            for (SocketChannel channel = workDone < budget ? accept(serverChannel) : null;
+                 channel != null;
+                 channel = workDone < budget ? accept(serverChannel) : null)
             {
                 channel.configureBlocking(false);
                 channel.setOption(TCP_NODELAY, nodelay);
                 channel.setOption(SO_KEEPALIVE, keepalive);
 
-                final InetSocketAddress address = localAddress(channel);
+                final int routeIndex = listener.resolve(channel);
 
-                serverFactory.onAccepted(channel, address, localAddressByRouteId::get);
+                if (routeIndex != -1)
+                {
+                    serverFactory.onAccepted(channel, listener.routeIds[routeIndex]);
+                }
+                else
+                {
+                    serverFactory.onRejected(channel);
+                }
+                workDone++;
             }
+
+            listener.releaseTokens(budget - workDone);
         }
         catch (Exception ex)
         {
             LangUtil.rethrowUnchecked(ex);
         }
 
-        return 1;
+        return workDone;
     }
 
     // @return null if max connections are reached or no more accept channels
@@ -205,29 +244,19 @@ public final class Acceptor
     {
         SocketChannel channel = null;
 
-        if (!unbound && remainingConnections.value <= 0)
-        {
-            router.forEach((id, buffer, index, length) ->
-            {
-                RouteFW route = routeRO.wrap(buffer, index, index + length);
-                if (route.role().get() == Role.SERVER)
-                {
-                    doUnregister(route.correlationId());
-                }
-            });
-            unbound = true;
-        }
-        else
+        if (remainingConnections() > 0)
         {
-            if (remainingConnections.value > 0)
-            {
-                channel = serverChannel.accept();
-            }
+            channel = serverChannel.accept();
 
             if (channel != null)
             {
-                remainingConnections.value--;
+                connections++;
                 serverFactory.counters.connections.accept(1);
+
+                if (remainingConnections() <= 0)
+                {
+                    pauseAccept();
+                }
             }
         }
 
@@ -236,51 +265,77 @@ public final class Acceptor
 
     void onChannelClosed()
     {
-        remainingConnections.value++;
+        connections--;
 
         serverFactory.counters.connections.accept(-1);
-        if (unbound && remainingConnections.value > 0)
+        if (paused && remainingConnections() > 0)
         {
-            router.forEach((id, buffer, index, length) ->
-            {
-                RouteFW route = routeRO.wrap(buffer, index, index + length);
-                if (route.role().get() == Role.SERVER)
-                {
-                    doRegister(route.correlationId(), route.localAddress().asString());
-                }
-            });
-            unbound = false;
+            resumeAccept();
         }
     }
 
-    private PollerKey findRegisteredKey(
-        SocketAddress localAddress)
+    // listeners stay bound while paused, so new connections wait in the kernel backlog
+    private void pauseAccept()
     {
-        return findPollerKey(localAddress, a -> null);
+        for (Listener listener : listenersByAddress.values())
+        {
+            listener.key.clear(OP_ACCEPT);
+        }
+        paused = true;
     }
 
-    private PollerKey findOrRegisterKey(
-        SocketAddress address)
+    private void resumeAccept()
     {
-        return findPollerKey(address, registerHandler);
+        paused = false;
+        for (Listener listener : listenersByAddress.values())
+        {
+            listener.resume();
+        }
     }
 
-    private PollerKey findPollerKey(
-        SocketAddress localAddress,
-        Function<SocketAddress, PollerKey> mappingFunction)
+    private int remainingConnections()
     {
-        final Optional<PollerKey> optional =
-                poller.keys()
-                      .filter(PollerKey::isValid)
-                      .filter(k -> ServerSocketChannel.class.isInstance(k.channel()))
-                      .filter(k -> hasLocalAddress(channel(k), localAddress))
-                      .findFirst();
-
-        return optional.orElse(mappingFunction.apply(localAddress));
+        final int shardCount = Math.max(shards.getAsInt(), 1);
+        final int shardConnections = maxConnections / shardCount + (shard < maxConnections % shardCount ? 1 : 0);
+
+        return shardConnections - connections;
+    }
+
+    private Listener findOrRegisterListener(
+        InetSocketAddress localAddress)
+    {
+        Listener listener = listenersByAddress.get(localAddress);
+
+        if (listener == null)
+        {
+            // wildcard listeners also accept for specific addresses on the same port, and vice versa
+            for (Listener candidate : listenersByAddress.values())
+            {
+                if (compareAddresses(candidate.address, localAddress) == 0)
+                {
+                    listener = candidate;
+                    break;
+                }
+            }
+        }
+
+        if (listener == null)
+        {
+            listener = new Listener(localAddress);
+            listenersByAddress.put(localAddress, listener);
+
+            if (paused)
+            {
+                listener.key.clear(OP_ACCEPT);
+            }
+        }
+
+        return listener;
     }
 
     private PollerKey handleRegister(
-        SocketAddress localAddress)
+        InetSocketAddress localAddress,
+        ToIntFunction<PollerKey> acceptHandler)
     {
         try
         {
@@ -301,32 +356,181 @@ public final class Acceptor
         return null;
     }
 
-    private boolean hasLocalAddress(
-        NetworkChannel channel,
-        SocketAddress address)
-    {
-        try
-        {
-            return compareAddresses(channel.getLocalAddress(), address) == 0;
-        }
-        catch (IOException ex)
-        {
-            LangUtil.rethrowUnchecked(ex);
-        }
-
-        // unreachable
-        return false;
-    }
-
     private static ServerSocketChannel channel(
         PollerKey key)
     {
         return (ServerSocketChannel) key.channel();
     }
 
-    private static InetSocketAddress localAddress(
+    private static InetAddress localAddress(
         SocketChannel channel) throws IOException
     {
-        return (InetSocketAddress) channel.getLocalAddress();
+        return ((InetSocketAddress) channel.getLocalAddress()).getAddress();
+    }
+
+    private final class Listener
+    {
+        private final InetSocketAddress address;
+        private final PollerKey key;
+        private final Object2IntHashMap<InetAddress> routeIndexByAddress;
+        private long[] routeIds;
+        private int routes;
+        private int wildcardRouteIndex;
+
+        private double tokens;
+        private long refilledAt;
+        private long resumeTimerId = Poller.NO_TIMER;
+
+        private Listener(
+            InetSocketAddress address)
+        {
+            this.address = address;
+            this.routeIds = new long[1];
+            this.routeIndexByAddress = new Object2IntHashMap<>(-1);
+            this.wildcardRouteIndex = -1;
+            this.key = handleRegister(address, k -> handleAccept(this, k));
+            this.tokens = Math.min(acceptBudget, acceptRate);
+            this.refilledAt = System.nanoTime();
+        }
+
+        // @return the number of connections the token bucket allows now, suspending accepts if none
+        private int acquireTokens()
+        {
+            int acquired = Integer.MAX_VALUE;
+
+            if (acceptRate > 0)
+            {
+                final long now = System.nanoTime();
+                final double refill = (now - refilledAt) * acceptRate / (double) TimeUnit.SECONDS.toNanos(1L);
+                tokens = Math.min(tokens + refill, Math.min(acceptBudget, acceptRate));
+                refilledAt = now;
+
+                acquired = (int) tokens;
+                tokens -= acquired;
+
+                if (acquired == 0)
+                {
+                    suspend();
+                }
+            }
+
+            return acquired;
+        }
+
+        private void releaseTokens(
+            int unused)
+        {
+            if (acceptRate > 0)
+            {
+                tokens += unused;
+            }
+        }
+
+        // stops accept readiness until the next token is due, as readiness is reported again by the poller otherwise
+        private void suspend()
+        {
+            if (resumeTimerId == Poller.NO_TIMER)
+            {
+                final long delay = (long) ((1.0 - tokens) * TimeUnit.SECONDS.toNanos(1L) / acceptRate);
+                key.clear(OP_ACCEPT);
+                resumeTimerId = poller.scheduleTimer(Math.max(delay, 1L), this::onResumeTimer);
+            }
+        }
+
+        private void resume()
+        {
+            if (resumeTimerId == Poller.NO_TIMER && !paused && key.isValid())
+            {
+                key.register(OP_ACCEPT);
+            }
+        }
+
+        private void onResumeTimer()
+        {
+            resumeTimerId = Poller.NO_TIMER;
+            resume();
+        }
+
+        private void cancelResume()
+        {
+            if (resumeTimerId != Poller.NO_TIMER)
+            {
+                poller.cancelTimer(resumeTimerId);
+                resumeTimerId = Poller.NO_TIMER;
+            }
+        }
+
+        private void addRoute(
+            long routeId)
+        {
+            if (routes == routeIds.length)
+            {
+                routeIds = Arrays.copyOf(routeIds, routes << 1);
+            }
+
+            routeIds[routes++] = routeId;
+            reindexRoutes();
+        }
+
+        // @return the number of remaining routes
+        private int removeRoute(
+            long routeId)
+        {
+            for (int i = 0; i < routes; i++)
+            {
+                if (routeIds[i] == routeId)
+                {
+                    System.arraycopy(routeIds, i + 1, routeIds, i, routes - i - 1);
+                    routes--;
+                    reindexRoutes();
+                    break;
+                }
+            }
+
+            return routes;
+        }
+
+        // indexes routes by local address when routed, preferring a specific address over the wildcard address
+        private void reindexRoutes()
+        {
+            routeIndexByAddress.clear();
+            wildcardRouteIndex = -1;
+
+            // in reverse, so the earliest route for an address wins
+            for (int i = routes - 1; i >= 0; i--)
+            {
+                final InetAddress routedAddress = localAddressByRouteId.get(routeIds[i]).getAddress();
+
+                if (routedAddress.isAnyLocalAddress())
+                {
+                    wildcardRouteIndex = i;
+                }
+                else
+                {
+                    routeIndexByAddress.put(routedAddress, i);
+                }
+            }
+        }
+
+        // @return index of the route for the accepted channel, or -1 if none match
+        private int resolve(
+            SocketChannel channel) throws IOException
+        {
+            int routeIndex = 0;
+
+            if (routes > 1)
+            {
+                // only routes sharing a wildcard listener need the accepted local address to disambiguate,
+                // which the accepted channel already holds
+                routeIndex = routeIndexByAddress.getValue(localAddress(channel));
+
+                if (routeIndex == -1)
+                {
+                    routeIndex = wildcardRouteIndex;
+                }
+            }
+
+            return routeIndex;
+        }
     }
 }
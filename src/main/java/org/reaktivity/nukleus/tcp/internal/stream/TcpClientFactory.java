@@ -23,13 +23,15 @@ import static java.nio.channels.SelectionKey.OP_CONNECT;
 import static java.nio.channels.SelectionKey.OP_READ;
 import static java.nio.channels.SelectionKey.OP_WRITE;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.agrona.LangUtil.rethrowUnchecked;
-import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
 import static org.reaktivity.nukleus.tcp.internal.TcpNukleus.WRITE_SPIN_COUNT;
+import static org.reaktivity.nukleus.tcp.internal.poller.Poller.NO_TIMER;
 import static org.reaktivity.nukleus.tcp.internal.util.IpUtil.CONNECT_HOST_AND_PORT_PATTERN;
 import static org.reaktivity.nukleus.tcp.internal.util.IpUtil.socketAddress;
 
 import java.io.IOException;
+import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
@@ -37,19 +39,18 @@ import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.UnresolvedAddressException;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
-import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 import java.util.regex.Matcher;
 
 import org.agrona.CloseHelper;
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.nukleus.function.MessageConsumer;
@@ -63,6 +64,7 @@ import org.reaktivity.nukleus.tcp.internal.TcpNukleus;
 import org.reaktivity.nukleus.tcp.internal.TcpRouteCounters;
 import org.reaktivity.nukleus.tcp.internal.poller.Poller;
 import org.reaktivity.nukleus.tcp.internal.poller.PollerKey;
+import org.reaktivity.nukleus.tcp.internal.resolver.Resolver;
 import org.reaktivity.nukleus.tcp.internal.types.Flyweight;
 import org.reaktivity.nukleus.tcp.internal.types.OctetsFW;
 import org.reaktivity.nukleus.tcp.internal.types.TcpAddressFW;
@@ -78,6 +80,8 @@ import org.reaktivity.nukleus.tcp.internal.util.CIDR;
 
 public class TcpClientFactory implements StreamFactory
 {
+    private static final long NO_TIMESTAMP = -1L;
+
     private final RouteFW routeRO = new RouteFW();
 
     private final BeginFW beginRO = new BeginFW();
@@ -98,37 +102,64 @@ public class TcpClientFactory implements StreamFactory
 
     private final TcpBeginExFW beginExRO = new TcpBeginExFW();
     private final TcpBeginExFW.Builder beginExRW = new TcpBeginExFW.Builder();
+    private final OctetsFW extensionRO = new OctetsFW();
 
     private final MessageFunction<RouteFW> wrapRoute = (t, b, i, l) -> routeRO.wrap(b, i, i + l);
 
     private final BufferPool bufferPool;
     private Poller poller;
     private final RouteManager router;
+    private final Resolver resolver;
     private final ByteBuffer readByteBuffer;
     private final MutableDirectBuffer readBuffer;
+    private final int readPayloadLimit;
+    private final Flyweight.Builder.Visitor readPayloadVisitor;
+    private final Consumer<OctetsFW.Builder> readPayload;
     private final MutableDirectBuffer writeBuffer;
     private final ByteBuffer writeByteBuffer;
     private final LongUnaryOperator supplyReplyId;
     private final LongSupplier supplyTraceId;
     private final int tcpTypeId;
-    private final Map<String, Predicate<? super InetAddress>> targetToCidrMatch;
+    private final Long2ObjectHashMap<CIDR> cidrsByRouteId;
+    private final Deque<TcpClient> clients;
     private final TcpCounters counters;
+    private final MutableDirectBuffer writeQueueBufferRW;
+    private final ByteBuffer[] writeQueueByteBuffers;
+    private final ByteBuffer[] writeGatherByteBuffers;
+    private final int writeCoalesceLimit;
+    private final int windowSize;
     private final int windowThreshold;
     private final boolean keepalive;
+    private final long connectAttemptDelay;
+    private final long connectTimeout;
+    private final long idleTimeout;
+    private final long writeTimeout;
+    private final Long2ObjectHashMap<TcpConnectPool> connectPoolsByRouteId;
+    private final int connectPoolMin;
+    private final int connectPoolMax;
+
+    private int readPayloadLength;
+    private ByteBuffer streamByteBuffer;
+    private ByteBuffer streamByteBufferRO;
+    private String unresolvedHost;
 
     public TcpClientFactory(
         TcpConfiguration config,
         RouteManager router,
         Poller poller,
+        Resolver resolver,
         MutableDirectBuffer writeBuffer,
         BufferPool bufferPool,
         LongUnaryOperator supplyReplyId,
         LongSupplier supplyTraceId,
         ToIntFunction<String> supplyTypeId,
-        TcpCounters counters)
+        TcpCounters counters,
+        Long2ObjectHashMap<TcpConnectPool> connectPoolsByRouteId,
+        Long2ObjectHashMap<CIDR> cidrsByRouteId)
     {
         this.router = requireNonNull(router);
         this.poller = poller;
+        this.resolver = requireNonNull(resolver);
         this.writeBuffer = requireNonNull(writeBuffer);
         this.writeByteBuffer = ByteBuffer.allocateDirect(writeBuffer.capacity()).order(nativeOrder());
         this.bufferPool = requireNonNull(bufferPool);
@@ -136,14 +167,29 @@ public class TcpClientFactory implements StreamFactory
         this.supplyTraceId = requireNonNull(supplyTraceId);
         this.tcpTypeId = supplyTypeId.applyAsInt(TcpNukleus.NAME);
 
-        final int readBufferSize = writeBuffer.capacity() - DataFW.FIELD_OFFSET_PAYLOAD;
-        this.readByteBuffer = ByteBuffer.allocateDirect(readBufferSize).order(nativeOrder());
+        this.readByteBuffer = ByteBuffer.allocateDirect(writeBuffer.capacity()).order(nativeOrder());
         this.readBuffer = new UnsafeBuffer(readByteBuffer);
-        this.targetToCidrMatch = new HashMap<>();
+        this.readPayloadLimit = readBuffer.capacity() - DataFW.FIELD_OFFSET_PAYLOAD;
+        this.readPayloadVisitor = (b, o, l) -> readPayloadLength;
+        this.readPayload = p -> p.set(readPayloadVisitor);
+        this.clients = new ArrayDeque<>();
 
         this.counters = counters;
-        this.windowThreshold = (bufferPool.slotCapacity() * config.windowThreshold()) / 100;
+        this.writeQueueBufferRW = new UnsafeBuffer(new byte[0]);
+        this.writeQueueByteBuffers = new ByteBuffer[config.writeQueueSlots()];
+        this.writeGatherByteBuffers = new ByteBuffer[config.writeQueueSlots() + 1];
+        this.writeCoalesceLimit = bufferPool.slotCapacity();
+        this.windowSize = bufferPool.slotCapacity() * config.writeQueueSlots();
+        this.windowThreshold = (windowSize * config.windowThreshold()) / 100;
         this.keepalive = config.keepalive();
+        this.connectAttemptDelay = MILLISECONDS.toNanos(config.connectAttemptDelay());
+        this.connectTimeout = MILLISECONDS.toNanos(config.connectTimeout());
+        this.idleTimeout = MILLISECONDS.toNanos(config.idleTimeout());
+        this.writeTimeout = MILLISECONDS.toNanos(config.writeTimeout());
+        this.connectPoolsByRouteId = connectPoolsByRouteId;
+        this.cidrsByRouteId = cidrsByRouteId;
+        this.connectPoolMin = config.connectPoolMin();
+        this.connectPoolMax = config.connectPoolMax();
     }
 
     @Override
@@ -173,48 +219,67 @@ public class TcpClientFactory implements StreamFactory
     {
         final long routeId = begin.routeId();
         final long initialId = begin.streamId();
+        final long authorization = begin.authorization();
         final OctetsFW extension = begin.extension();
-        final boolean hasExtension = extension.sizeof() > 0;
 
-        MessagePredicate filter = (t, b, o, l) ->
-        {
-            final RouteFW route = routeRO.wrap(b, o, o + l);
-            final String remoteAddressAndPort = route.remoteAddress().asString();
-            final Matcher matcher = CONNECT_HOST_AND_PORT_PATTERN.matcher(remoteAddressAndPort);
-            return !hasExtension ||
-                    (matcher.matches() &&
-                            resolveRemoteAddressExt(extension, matcher.group(1),
-                                                               parseInt(matcher.group(2))) != null);
-        };
-
-        final RouteFW route = router.resolve(routeId, begin.authorization(), filter, wrapRoute);
+        unresolvedHost = null;
+        final RouteFW route = resolveRoute(routeId, authorization, extension);
 
         MessageConsumer newStream = null;
 
-        if (route != null)
+        if (route != null || unresolvedHost != null)
         {
-            final String remoteAddressAndPort = route.remoteAddress().asString();
-            final Matcher matcher = CONNECT_HOST_AND_PORT_PATTERN.matcher(remoteAddressAndPort);
-            matcher.matches();
-            final String remoteHost = matcher.group(1);
-            final int remotePort = parseInt(matcher.group(2));
-            InetSocketAddress remoteAddress = hasExtension ? resolveRemoteAddressExt(extension, remoteHost, remotePort) :
-                                                             new InetSocketAddress(remoteHost, remotePort);
-            assert remoteAddress != null;
+            TcpClient client = clients.poll();
+            if (client == null)
+            {
+                client = new TcpClient();
+            }
 
-            final SocketChannel channel = newSocketChannel();
-            final TcpRouteCounters routeCounters = counters.supplyRoute(route.correlationId());
+            client.init(application, routeId, initialId);
+
+            if (route != null)
+            {
+                client.doConnect(route, extension);
+            }
+            else
+            {
+                // routing needs a host name not yet resolved, retried when the lookup completes
+                client.doResolveRoute(unresolvedHost, authorization, extension);
+            }
 
-            final TcpClient client = new TcpClient(application, routeId, initialId, channel, routeCounters);
-            client.doNetworkConnect(remoteAddress);
-            newStream = client::onApplication;
+            newStream = client.applicationHandler;
         }
 
         return newStream;
     }
 
+    // sets unresolvedHost when a candidate route could not be matched without a pending host name lookup
+    private RouteFW resolveRoute(
+        long routeId,
+        long authorization,
+        OctetsFW extension)
+    {
+        final boolean hasExtension = extension.sizeof() > 0;
+
+        MessagePredicate filter = (t, b, o, l) ->
+        {
+            final RouteFW route = routeRO.wrap(b, o, o + l);
+            final String remoteAddressAndPort = route.remoteAddress().asString();
+            final Matcher matcher = CONNECT_HOST_AND_PORT_PATTERN.matcher(remoteAddressAndPort);
+            // holds the stream on a pending lookup rather than falling through to later routes
+            return unresolvedHost == null &&
+                    (!hasExtension ||
+                    (matcher.matches() &&
+                            resolveRemoteAddressExt(extension, route.correlationId(), matcher.group(1),
+                                                               parseInt(matcher.group(2))) != null));
+        };
+
+        return router.resolve(routeId, authorization, filter, wrapRoute);
+    }
+
     private InetSocketAddress resolveRemoteAddressExt(
         OctetsFW extension,
+        long routeId,
         String targetName,
         long targetRef)
     {
@@ -223,85 +288,159 @@ public class TcpClientFactory implements StreamFactory
         final int remotePort = beginEx.remotePort();
 
         InetAddress address = null;
-        try
-        {
-            Predicate<? super InetAddress> subnetFilter = extensionMatcher(targetName);
 
-            if (targetRef == 0 || targetRef == remotePort)
+        if (targetRef == 0 || targetRef == remotePort)
+        {
+            switch (remoteAddress.kind())
             {
-                switch (remoteAddress.kind())
+            case TcpAddressFW.KIND_HOST:
+                String requestedAddressName = remoteAddress.host().asString();
+                InetAddress[] candidates = lookup(requestedAddressName);
+                for (int i = 0; candidates != null && address == null && i < candidates.length; i++)
                 {
-                case TcpAddressFW.KIND_HOST:
-                    String requestedAddressName = remoteAddress.host().asString();
-                    Optional<InetAddress> optional = Arrays
-                            .stream(InetAddress.getAllByName(requestedAddressName))
-                            .filter(subnetFilter)
-                            .findFirst();
-                    address = optional.isPresent() ? optional.get() : null;
-                    break;
-                case TcpAddressFW.KIND_IPV4_ADDRESS:
-                    OctetsFW ipRO = remoteAddress.ipv4Address();
-                    byte[] addr = new byte[ipRO.sizeof()];
-                    ipRO.buffer().getBytes(ipRO.offset(), addr, 0, ipRO.sizeof());
-                    InetAddress candidate = InetAddress.getByAddress(addr);
-                    address =  subnetFilter.test(candidate) ? candidate : null;
-                    break;
-                case TcpAddressFW.KIND_IPV6_ADDRESS:
-                    ipRO = remoteAddress.ipv6Address();
-                    addr = new byte[ipRO.sizeof()];
-                    ipRO.buffer().getBytes(ipRO.offset(), addr, 0, ipRO.sizeof());
-                    candidate = InetAddress.getByAddress(addr);
-                    address =  subnetFilter.test(candidate) ? candidate : null;
-                    break;
-                default:
-                    throw new RuntimeException("Unexpected address kind");
+                    address = matchesTarget(routeId, targetName, candidates[i]) ? candidates[i] : null;
                 }
+                break;
+            case TcpAddressFW.KIND_IPV4_ADDRESS:
+                address = matchesTarget(routeId, targetName, remoteAddress.ipv4Address());
+                break;
+            case TcpAddressFW.KIND_IPV6_ADDRESS:
+                address = matchesTarget(routeId, targetName, remoteAddress.ipv6Address());
+                break;
+            default:
+                throw new RuntimeException("Unexpected address kind");
+            }
+        }
+
+        return address != null ? new InetSocketAddress(address, remotePort) : null;
+    }
+
+    // @return the candidate address if it matches the route target, otherwise null
+    private InetAddress matchesTarget(
+        long routeId,
+        String targetName,
+        OctetsFW candidate)
+    {
+        InetAddress address = null;
+
+        if (targetName.contains("/"))
+        {
+            // matched on raw address bytes, only allocating the address to connect
+            final CIDR cidr = supplyCidr(routeId, targetName);
+            if (cidr.isInRange(candidate.buffer(), candidate.offset(), candidate.sizeof()))
+            {
+                address = inetAddress(candidate);
             }
         }
-        catch (UnknownHostException ignore)
+        else
         {
-           // NOOP
+            final InetAddress candidateAddress = inetAddress(candidate);
+            address = matchesTarget(routeId, targetName, candidateAddress) ? candidateAddress : null;
         }
 
-        return address != null ? new InetSocketAddress(address, remotePort) : null;
+        return address;
     }
 
-    private Predicate<? super InetAddress> extensionMatcher(
-        String targetName) throws UnknownHostException
+    // @return the requested host name, or null if the extension requests an address
+    private String requestedHost(
+        OctetsFW extension)
     {
-        Predicate<? super InetAddress> result;
+        final TcpAddressFW remoteAddress = extension.get(beginExRO::wrap).remoteAddress();
+        return remoteAddress.kind() == TcpAddressFW.KIND_HOST ? remoteAddress.host().asString() : null;
+    }
+
+    // @return key of an established connection for the route, or null if none idle
+    private PollerKey acquireConnection(
+        long routeId,
+        InetAddress address,
+        int port)
+    {
+        TcpConnectPool connectPool = connectPoolsByRouteId.get(routeId);
+
+        if (connectPool == null)
+        {
+            // usually created when routed, see TcpClientFactoryBuilder#supplyConnectPool
+            connectPool = new TcpConnectPool(poller, connectPoolMin, connectPoolMax, keepalive);
+            connectPoolsByRouteId.put(routeId, connectPool);
+        }
+
+        if (!connectPool.matches(address, port))
+        {
+            // not yet resolved when routed, or the remote address resolves differently now
+            connectPool.connect(new InetSocketAddress(address, port));
+        }
+
+        return connectPool.acquire();
+    }
+
+    private boolean matchesTarget(
+        long routeId,
+        String targetName,
+        InetAddress candidate)
+    {
+        boolean matches;
+
         if (targetName.contains("/"))
         {
-            result = targetToCidrMatch.computeIfAbsent(targetName, this::inetMatchesCIDR);
+            final CIDR cidr = supplyCidr(routeId, targetName);
+            matches = cidr.isInRange(candidate);
         }
         else
         {
-            InetAddress.getByName(targetName);
-            result = targetToCidrMatch.computeIfAbsent(targetName, this::inetMatchesInet);
+            final InetAddress[] toMatch = lookup(targetName);
+            matches = toMatch != null && toMatch.length != 0 && toMatch[0].equals(candidate);
         }
-        return result;
+
+        return matches;
     }
 
-    private Predicate<InetAddress> inetMatchesCIDR(
+    // built once per route, removed when unrouted, see TcpElektron
+    private CIDR supplyCidr(
+        long routeId,
         String targetName)
     {
-        final CIDR cidr = new CIDR(targetName);
-        return candidate -> cidr.isInRange(candidate.getHostAddress());
+        CIDR cidr = cidrsByRouteId.get(routeId);
+
+        if (cidr == null)
+        {
+            cidr = new CIDR(targetName);
+            cidrsByRouteId.put(routeId, cidr);
+        }
+
+        return cidr;
+    }
+
+    // @return cached addresses, or null while the host name is resolving, see Resolver#lookup
+    private InetAddress[] lookup(
+        String hostname)
+    {
+        final InetAddress[] addresses = resolver.lookup(hostname);
+
+        if (addresses == null && unresolvedHost == null)
+        {
+            unresolvedHost = hostname;
+        }
+
+        return addresses;
     }
 
-    private Predicate<InetAddress> inetMatchesInet(
-        String targetName)
+    private static InetAddress inetAddress(
+        OctetsFW address)
     {
+        final byte[] addr = new byte[address.sizeof()];
+        address.buffer().getBytes(address.offset(), addr, 0, addr.length);
+
         try
         {
-            InetAddress toMatch = InetAddress.getByName(targetName);
-            return candidate -> toMatch.equals(candidate);
+            return InetAddress.getByAddress(addr);
         }
-        catch (UnknownHostException e)
+        catch (UnknownHostException ex)
         {
-            rethrowUnchecked(e);
+            // unreachable, IPv4 and IPv6 addresses are 4 and 16 bytes
+            rethrowUnchecked(ex);
         }
-        return candidate -> false;
+
+        return null;
     }
 
     private SocketChannel newSocketChannel()
@@ -325,20 +464,50 @@ public class TcpClientFactory implements StreamFactory
     private void doCloseNetwork(
         SocketChannel network)
     {
-        CloseHelper.quietClose(network);
+        poller.doClose(network);
     }
 
+    // recycled when the network channel closes, see doCloseNetwork
     private final class TcpClient
     {
-        private final MessageConsumer application;
-        private final long routeId;
-        private final long initialId;
-        private final long replyId;
-        private final SocketChannel network;
-        private final TcpRouteCounters counters;
+        private final TcpWriteQueue networkQueue;
+        private final MessageConsumer applicationHandler;
+        private final ToIntFunction<PollerKey> connectHandler;
+        private final ToIntFunction<PollerKey> readHandler;
+        private final ToIntFunction<PollerKey> writeHandler;
+        private final ToIntFunction<PollerKey> flushHandler;
+        private final Consumer<InetAddress[]> routeResolvedHandler;
+        private final Consumer<InetAddress[]> connectResolvedHandler;
+        private final ToIntFunction<PollerKey> attemptConnectHandler;
+        private final Runnable attemptHandler;
+        private final MutableDirectBuffer extensionBuffer;
+        private final TcpTimeout connectTimer;
+        private final TcpTimeout idleTimer;
+        private final TcpTimeout writeTimer;
+
+        private MessageConsumer application;
+        private long routeId;
+        private long initialId;
+        private long replyId;
+        private SocketChannel network;
+        private TcpRouteCounters counters;
 
         private PollerKey networkKey;
 
+        private String resolvingHost;
+        private Consumer<InetAddress[]> resolvingHandler;
+        private long authorization;
+        private long connectRouteId;
+        private int extensionLength;
+        private int remotePort;
+
+        private InetAddress[] attemptAddresses;
+        private SocketChannel[] attemptChannels;
+        private int attemptCount;
+        private int attemptIndex;
+        private int attemptsPending;
+        private long attemptTimerId;
+
         private long replyBudgetId;
         private int replyBudget;
         private int replyPadding;
@@ -346,23 +515,200 @@ public class TcpClientFactory implements StreamFactory
         private int initialBudget;
 
         private int state;
-        private int networkSlot = NO_SLOT;
-        private int networkSlotOffset;
         private int bytesFlushed;
+        private boolean closed;
 
-        private TcpClient(
+        private long connectingAt;
+        private long connectedAt;
+        private long queuedAt;
+        private boolean firstByteRead;
+        private long connectionBytesRead;
+        private long connectionBytesWritten;
+
+        private TcpClient()
+        {
+            this.networkQueue = new TcpWriteQueue(bufferPool, writeQueueBufferRW, writeQueueByteBuffers);
+            this.applicationHandler = this::onApplication;
+            this.connectHandler = this::onNetworkConnect;
+            this.readHandler = this::onNetworkReadable;
+            this.writeHandler = this::onNetworkWritable;
+            this.flushHandler = this::onNetworkFlush;
+            this.routeResolvedHandler = this::onRouteResolved;
+            this.connectResolvedHandler = this::onConnectResolved;
+            this.attemptConnectHandler = this::onNetworkAttemptConnect;
+            this.attemptHandler = this::doNetworkAttempt;
+            this.extensionBuffer = new UnsafeBuffer(new byte[0]);
+            this.attemptAddresses = new InetAddress[0];
+            this.attemptChannels = new SocketChannel[0];
+            this.connectTimer = new TcpTimeout(poller, connectTimeout, this::onNetworkConnectTimeout);
+            this.idleTimer = new TcpTimeout(poller, idleTimeout, this::onNetworkTimeout);
+            this.writeTimer = new TcpTimeout(poller, writeTimeout, this::onNetworkTimeout);
+        }
+
+        private void init(
             MessageConsumer application,
             long routeId,
-            long initialId,
-            SocketChannel network,
-            TcpRouteCounters counters)
+            long initialId)
         {
             this.application = application;
             this.routeId = routeId;
             this.initialId = initialId;
             this.replyId = supplyReplyId.applyAsLong(initialId);
-            this.network = network;
-            this.counters = counters;
+            this.network = null;
+            this.counters = null;
+            this.networkKey = null;
+            this.resolvingHost = null;
+            this.resolvingHandler = null;
+            this.attemptCount = 0;
+            this.attemptIndex = 0;
+            this.attemptsPending = 0;
+            this.attemptTimerId = NO_TIMER;
+            this.queuedAt = NO_TIMESTAMP;
+            this.firstByteRead = false;
+            this.connectionBytesRead = 0L;
+            this.connectionBytesWritten = 0L;
+            this.replyBudgetId = 0L;
+            this.replyBudget = 0;
+            this.replyPadding = 0;
+            this.initialBudget = 0;
+            this.state = 0;
+            this.bytesFlushed = 0;
+            this.closed = false;
+        }
+
+        private void doResolveRoute(
+            String hostname,
+            long authorization,
+            OctetsFW extension)
+        {
+            final int length = extension.sizeof();
+
+            if (extensionBuffer.capacity() < length)
+            {
+                extensionBuffer.wrap(new byte[length]);
+            }
+            extensionBuffer.putBytes(0, extension.buffer(), extension.offset(), length);
+
+            this.authorization = authorization;
+            this.extensionLength = length;
+
+            doResolve(hostname, routeResolvedHandler);
+        }
+
+        private void onRouteResolved(
+            InetAddress[] addresses)
+        {
+            resolvingHost = null;
+
+            final OctetsFW extension = extensionRO.wrap(extensionBuffer, 0, extensionLength);
+
+            unresolvedHost = null;
+            final RouteFW route = resolveRoute(routeId, authorization, extension);
+
+            if (route != null)
+            {
+                doConnect(route, extension);
+            }
+            else if (unresolvedHost != null)
+            {
+                doResolve(unresolvedHost, routeResolvedHandler);
+            }
+            else
+            {
+                final long traceId = supplyTraceId.getAsLong();
+                doReset(application, routeId, initialId, traceId);
+                doCloseNetwork();
+            }
+        }
+
+        private void doConnect(
+            RouteFW route,
+            OctetsFW extension)
+        {
+            final String remoteAddressAndPort = route.remoteAddress().asString();
+            final Matcher matcher = CONNECT_HOST_AND_PORT_PATTERN.matcher(remoteAddressAndPort);
+            matcher.matches();
+            final String remoteHost = matcher.group(1);
+            final int remotePort = parseInt(matcher.group(2));
+
+            this.connectRouteId = route.correlationId();
+            this.counters = TcpClientFactory.this.counters.supplyRoute(connectRouteId);
+
+            if (extension.sizeof() > 0)
+            {
+                final InetSocketAddress remoteAddress =
+                        resolveRemoteAddressExt(extension, connectRouteId, remoteHost, remotePort);
+                assert remoteAddress != null;
+
+                final String requestedHost = connectAttemptDelay > 0 ? requestedHost(extension) : null;
+                if (requestedHost != null)
+                {
+                    this.remotePort = remoteAddress.getPort();
+                    doNetworkAttempts(resolver.lookup(requestedHost), remoteHost);
+                }
+                else
+                {
+                    doNetworkConnect(remoteAddress);
+                }
+            }
+            else
+            {
+                this.remotePort = remotePort;
+                doResolve(remoteHost, connectResolvedHandler);
+            }
+        }
+
+        private void onConnectResolved(
+            InetAddress[] addresses)
+        {
+            resolvingHost = null;
+
+            final PollerKey connectedKey = addresses.length != 0 && connectPoolMin > 0
+                    ? acquireConnection(connectRouteId, addresses[0], remotePort)
+                    : null;
+
+            if (connectedKey != null)
+            {
+                onNetworkAcquired(connectedKey);
+            }
+            else if (addresses.length > 1 && connectAttemptDelay > 0)
+            {
+                doNetworkAttempts(addresses, null);
+            }
+            else if (addresses.length != 0)
+            {
+                doNetworkConnect(new InetSocketAddress(addresses[0], remotePort));
+            }
+            else
+            {
+                state = TcpState.openingInitial(state);
+                connectingAt = TcpClientFactory.this.counters.timestamp();
+                counters.opensWritten.getAsLong();
+                onNetworkRejected();
+            }
+        }
+
+        private void onNetworkAcquired(
+            PollerKey key)
+        {
+            network = (SocketChannel) key.channel();
+            networkKey = key;
+
+            state = TcpState.openingInitial(state);
+            connectingAt = TcpClientFactory.this.counters.timestamp();
+            counters.opensWritten.getAsLong();
+
+            onNetworkConnected();
+        }
+
+        // handler may complete immediately when cached, so pending state is recorded first
+        private void doResolve(
+            String hostname,
+            Consumer<InetAddress[]> handler)
+        {
+            resolvingHost = hostname;
+            resolvingHandler = handler;
+            resolver.resolve(hostname, handler);
         }
 
         private void doNetworkConnect(
@@ -371,24 +717,186 @@ public class TcpClientFactory implements StreamFactory
             try
             {
                 state = TcpState.openingInitial(state);
+                connectingAt = TcpClientFactory.this.counters.timestamp();
                 counters.opensWritten.getAsLong();
+                network = newSocketChannel();
                 network.setOption(SO_KEEPALIVE, keepalive);
 
                 if (network.connect(remoteAddress))
                 {
+                    networkKey = poller.doRegister(network, 0, null);
                     onNetworkConnected();
                 }
                 else
                 {
-                    networkKey = poller.doRegister(network, OP_CONNECT, this::onNetworkConnect);
+                    networkKey = poller.doRegister(network, OP_CONNECT, connectHandler);
+                    connectTimer.start();
+                }
+            }
+            catch (UnresolvedAddressException | IOException ex)
+            {
+                onNetworkRejected();
+            }
+        }
+
+        // races connects to each address matching the route target, staggered by connectAttemptDelay
+        private void doNetworkAttempts(
+            InetAddress[] addresses,
+            String targetName)
+        {
+            if (attemptAddresses.length < addresses.length)
+            {
+                attemptAddresses = new InetAddress[addresses.length];
+                attemptChannels = new SocketChannel[addresses.length];
+            }
+
+            int count = 0;
+            for (int i = 0; i < addresses.length; i++)
+            {
+                if (targetName == null || matchesTarget(connectRouteId, targetName, addresses[i]))
+                {
+                    attemptAddresses[count++] = addresses[i];
                 }
             }
+
+            // alternate address families, see RFC 8305 section 4
+            for (int i = 1; i < count; i++)
+            {
+                final boolean ipv6 = !(attemptAddresses[i - 1] instanceof Inet6Address);
+                for (int j = i; j < count; j++)
+                {
+                    if (attemptAddresses[j] instanceof Inet6Address == ipv6)
+                    {
+                        final InetAddress address = attemptAddresses[j];
+                        System.arraycopy(attemptAddresses, i, attemptAddresses, i + 1, j - i);
+                        attemptAddresses[i] = address;
+                        break;
+                    }
+                }
+            }
+
+            state = TcpState.openingInitial(state);
+            connectingAt = TcpClientFactory.this.counters.timestamp();
+            counters.opensWritten.getAsLong();
+
+            attemptCount = count;
+            attemptIndex = 0;
+            attemptsPending = 0;
+
+            if (count != 0)
+            {
+                connectTimer.start();
+                doNetworkAttempt();
+            }
+            else
+            {
+                // addresses resolve differently now, none matching the route target
+                onNetworkRejected();
+            }
+        }
+
+        private void doNetworkAttempt()
+        {
+            attemptTimerId = NO_TIMER;
+
+            final int attempt = attemptIndex++;
+            final SocketChannel channel = newSocketChannel();
+
+            attemptChannels[attempt] = channel;
+            attemptsPending++;
+
+            try
+            {
+                channel.setOption(SO_KEEPALIVE, keepalive);
+
+                if (channel.connect(new InetSocketAddress(attemptAddresses[attempt], remotePort)))
+                {
+                    onNetworkAttemptConnected(poller.doRegister(channel, 0, null));
+                }
+                else
+                {
+                    poller.doRegister(channel, OP_CONNECT, attemptConnectHandler);
+
+                    if (attemptIndex < attemptCount)
+                    {
+                        attemptTimerId = poller.scheduleTimer(connectAttemptDelay, attemptHandler);
+                    }
+                }
+            }
+            catch (UnresolvedAddressException | IOException ex)
+            {
+                onNetworkAttemptFailed(channel);
+            }
+        }
+
+        private int onNetworkAttemptConnect(
+            PollerKey key)
+        {
+            final SocketChannel channel = (SocketChannel) key.channel();
+
+            try
+            {
+                key.clear(OP_CONNECT);
+                channel.finishConnect();
+                onNetworkAttemptConnected(key);
+            }
             catch (UnresolvedAddressException | IOException ex)
             {
+                onNetworkAttemptFailed(channel);
+            }
+
+            return 1;
+        }
+
+        private void onNetworkAttemptConnected(
+            PollerKey key)
+        {
+            network = (SocketChannel) key.channel();
+            networkKey = key;
+
+            doCloseAttempts();
+            onNetworkConnected();
+        }
+
+        private void onNetworkAttemptFailed(
+            SocketChannel channel)
+        {
+            poller.doClose(channel);
+            attemptsPending--;
+
+            if (attemptIndex < attemptCount)
+            {
+                // no need to wait for the delay, see RFC 8305 section 5
+                poller.cancelTimer(attemptTimerId);
+                doNetworkAttempt();
+            }
+            else if (attemptsPending == 0)
+            {
+                doCloseAttempts();
                 onNetworkRejected();
             }
         }
 
+        // closes all attempts other than the connected network channel
+        private void doCloseAttempts()
+        {
+            poller.cancelTimer(attemptTimerId);
+            attemptTimerId = NO_TIMER;
+
+            for (int i = 0; i < attemptIndex; i++)
+            {
+                if (attemptChannels[i] != network)
+                {
+                    poller.doClose(attemptChannels[i]);
+                }
+                attemptChannels[i] = null;
+            }
+
+            attemptCount = 0;
+            attemptIndex = 0;
+            attemptsPending = 0;
+        }
+
         private int onNetworkConnect(
             PollerKey key)
         {
@@ -413,13 +921,20 @@ public class TcpClientFactory implements StreamFactory
             state = TcpState.openInitial(state);
             counters.opensRead.getAsLong();
 
+            connectTimer.cancel();
+            idleTimer.start();
+
+            connectedAt = TcpClientFactory.this.counters.timestamp();
+            counters.connectTimes.record(connectedAt - connectingAt);
+
             try
             {
-                networkKey.handler(OP_READ, this::onNetworkReadable);
-                networkKey.handler(OP_WRITE, this::onNetworkWritable);
+                networkKey.handler(OP_READ, readHandler);
+                networkKey.handler(OP_WRITE, writeHandler);
+                networkKey.flushHandler(flushHandler);
 
                 doApplicationBegin(traceId);
-                doApplicationWindow(traceId, bufferPool.slotCapacity());
+                doApplicationWindow(traceId, windowSize);
             }
             catch (IOException ex)
             {
@@ -433,7 +948,27 @@ public class TcpClientFactory implements StreamFactory
 
             counters.resetsRead.getAsLong();
 
+            connectTimer.cancel();
             doApplicationReset(traceId);
+            doCloseNetwork();
+        }
+
+        private void onNetworkConnectTimeout()
+        {
+            onNetworkRejected();
+        }
+
+        private void onNetworkQueued()
+        {
+            if (queuedAt == NO_TIMESTAMP)
+            {
+                queuedAt = TcpClientFactory.this.counters.timestamp();
+            }
+        }
+
+        private void onNetworkTimeout()
+        {
+            doCleanup(supplyTraceId.getAsLong());
         }
 
         private int onNetworkReadable(
@@ -441,10 +976,13 @@ public class TcpClientFactory implements StreamFactory
         {
             assert replyBudget > replyPadding;
 
-            final int limit = Math.min(replyBudget - replyPadding, readBuffer.capacity());
+            final int limit = Math.min(replyBudget - replyPadding, readPayloadLimit);
+
+            // read directly into the payload of the DATA frame, see doData
+            ((Buffer) readByteBuffer).position(DataFW.FIELD_OFFSET_PAYLOAD);
+            ((Buffer) readByteBuffer).limit(DataFW.FIELD_OFFSET_PAYLOAD + limit);
 
-            ((Buffer) readByteBuffer).position(0);
-            ((Buffer) readByteBuffer).limit(limit);
+            int workDone = 1;
 
             try
             {
@@ -459,13 +997,32 @@ public class TcpClientFactory implements StreamFactory
 
                     if (network.socket().isOutputShutdown())
                     {
-                        doCloseNetwork(network);
+                        doCloseNetwork();
                     }
                 }
                 else if (bytesRead != 0)
                 {
+                    idleTimer.touch();
+                    counters.readSizes.record(bytesRead);
+
+                    if (!firstByteRead)
+                    {
+                        counters.firstByteTimes.record(TcpClientFactory.this.counters.timestamp() - connectedAt);
+                        firstByteRead = true;
+                    }
                     counters.bytesRead.accept(bytesRead);
-                    doApplicationData(readBuffer, 0, bytesRead);
+                    connectionBytesRead += bytesRead;
+                    doApplicationData(bytesRead);
+
+                    if (bytesRead < limit)
+                    {
+                        key.drained(OP_READ);
+                    }
+                }
+                else
+                {
+                    // drained, no further read readiness until the next edge
+                    workDone = 0;
                 }
             }
             catch (IOException ex)
@@ -473,13 +1030,13 @@ public class TcpClientFactory implements StreamFactory
                 doCleanup(supplyTraceId.getAsLong());
             }
 
-            return 1;
+            return workDone;
         }
 
         private int onNetworkWritable(
             PollerKey key)
         {
-            if (networkSlot == NO_SLOT)
+            if (networkQueue.isEmpty())
             {
                 counters.writeopsNoSlot.getAsLong();
                 assert key == networkKey;
@@ -487,17 +1044,27 @@ public class TcpClientFactory implements StreamFactory
             }
             else
             {
-                assert networkSlot != NO_SLOT;
-
                 long traceId = supplyTraceId.getAsLong();
-                DirectBuffer buffer = bufferPool.buffer(networkSlot);
-                ByteBuffer byteBuffer = bufferPool.byteBuffer(networkSlot);
-                byteBuffer.limit(byteBuffer.position() + networkSlotOffset);
+                return doNetworkWriteQueue(traceId);
+            }
+        }
+
+        private int onNetworkFlush(
+            PollerKey key)
+        {
+            int bytesWritten = 0;
 
-                return doNetworkWrite(buffer, 0, networkSlotOffset, byteBuffer, traceId);
+            // frames queued behind a partial write are flushed when writable, see onNetworkWritable
+            if (!networkQueue.isEmpty() && !key.isRegistered(OP_WRITE))
+            {
+                long traceId = supplyTraceId.getAsLong();
+                bytesWritten = doNetworkWriteQueue(traceId);
             }
+
+            return bytesWritten;
         }
 
+        // writes the frame in place, gathered behind any queued bytes, and queues only the unwritten remainder
         private int doNetworkWrite(
             DirectBuffer buffer,
             int offset,
@@ -505,56 +1072,121 @@ public class TcpClientFactory implements StreamFactory
             ByteBuffer byteBuffer,
             long traceId)
         {
+            final int queuedLength = networkQueue.length();
+            final int slotCount = networkQueue.slotCount();
+
             int bytesWritten = 0;
 
             try
             {
-                for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                if (slotCount == 0)
                 {
-                    bytesWritten = network.write(byteBuffer);
+                    for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                    {
+                        bytesWritten = network.write(byteBuffer);
+                    }
+                }
+                else
+                {
+                    final ByteBuffer[] byteBuffers = writeGatherByteBuffers;
+                    System.arraycopy(networkQueue.byteBuffers(), 0, byteBuffers, 0, slotCount);
+                    byteBuffers[slotCount] = byteBuffer;
+
+                    for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                    {
+                        bytesWritten = (int) network.write(byteBuffers, 0, slotCount + 1);
+                    }
                 }
 
                 counters.bytesWritten.accept(bytesWritten);
+                connectionBytesWritten += bytesWritten;
 
                 bytesFlushed += bytesWritten;
+                counters.writeSizes.record(bytesWritten);
 
-                if (bytesWritten < length)
+                if (bytesWritten > 0)
+                {
+                    // only progress is activity, so a peer that stops reading still times out
+                    idleTimer.touch();
+                    writeTimer.touch();
+                }
+
+                final int frameBytesWritten = Math.max(bytesWritten - queuedLength, 0);
+
+                if (frameBytesWritten < length)
                 {
-                    if (networkSlot == NO_SLOT)
+                    if (bytesWritten < queuedLength)
                     {
-                        networkSlot = bufferPool.acquire(initialId);
+                        networkQueue.consume(bytesWritten);
                     }
+                    else
+                    {
+                        cleanupNetworkSlotIfNecessary();
+                    }
+
+                    final int remaining = length - frameBytesWritten;
 
-                    if (networkSlot == NO_SLOT)
+                    if (networkQueue.append(initialId, buffer, offset + frameBytesWritten, remaining))
                     {
-                        counters.overflows.getAsLong();
-                        doApplicationResetIfNecessary(traceId);
-                        doCleanup(traceId);
+                        onNetworkWritePartial(networkQueue.length());
                     }
                     else
                     {
-                        final MutableDirectBuffer slotBuffer = bufferPool.buffer(networkSlot);
-                        slotBuffer.putBytes(0, buffer, offset + bytesWritten, length - bytesWritten);
-                        networkSlotOffset = length - bytesWritten;
-
-                        networkKey.register(OP_WRITE);
-                        counters.writeops.getAsLong();
+                        onNetworkOverflow(traceId);
                     }
                 }
                 else
                 {
-                    cleanupNetworkSlotIfNecessary();
-                    networkKey.clear(OP_WRITE);
+                    onNetworkWriteComplete(traceId);
+                }
+            }
+            catch (IOException ex)
+            {
+                doCleanup(traceId);
+            }
 
-                    if (TcpState.initialClosing(state))
-                    {
-                        doNetworkShutdownOutput(traceId);
-                    }
-                    else if (bytesFlushed >= windowThreshold)
-                    {
-                        doApplicationWindow(traceId, bytesFlushed);
-                        bytesFlushed = 0;
-                    }
+            return bytesWritten;
+        }
+
+        private int doNetworkWriteQueue(
+            long traceId)
+        {
+            final int length = networkQueue.length();
+            final int slotCount = networkQueue.slotCount();
+            final ByteBuffer[] byteBuffers = networkQueue.byteBuffers();
+
+            int bytesWritten = 0;
+
+            try
+            {
+                for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                {
+                    bytesWritten = slotCount == 1
+                        ? network.write(byteBuffers[0])
+                        : (int) network.write(byteBuffers, 0, slotCount);
+                }
+
+                counters.bytesWritten.accept(bytesWritten);
+                connectionBytesWritten += bytesWritten;
+
+                bytesFlushed += bytesWritten;
+                counters.writeSizes.record(bytesWritten);
+
+                if (bytesWritten > 0)
+                {
+                    // only progress is activity, so a peer that stops reading still times out
+                    idleTimer.touch();
+                    writeTimer.touch();
+                }
+
+                if (bytesWritten < length)
+                {
+                    networkQueue.consume(bytesWritten);
+                    onNetworkWritePartial(length - bytesWritten);
+                }
+                else
+                {
+                    onNetworkWriteComplete(traceId);
                 }
             }
             catch (IOException ex)
@@ -565,6 +1197,72 @@ public class TcpClientFactory implements StreamFactory
             return bytesWritten;
         }
 
+        private void onNetworkWritePartial(
+            int remaining)
+        {
+            counters.partials.getAsLong();
+            counters.partialWrites.getAsLong();
+            counters.queuedSizes.record(remaining);
+
+            onNetworkQueued();
+            writeTimer.start();
+            networkKey.register(OP_WRITE);
+            networkKey.drained(OP_WRITE);
+            counters.writeops.getAsLong();
+        }
+
+        private void onNetworkWriteComplete(
+            long traceId)
+        {
+            cleanupNetworkSlotIfNecessary();
+            networkKey.clear(OP_WRITE);
+            writeTimer.cancel();
+
+            if (queuedAt != NO_TIMESTAMP)
+            {
+                counters.flushTimes.record(TcpClientFactory.this.counters.timestamp() - queuedAt);
+                queuedAt = NO_TIMESTAMP;
+            }
+
+            if (TcpState.initialClosing(state))
+            {
+                doNetworkShutdownOutput(traceId);
+            }
+            else if (bytesFlushed >= windowThreshold)
+            {
+                doApplicationWindow(traceId, bytesFlushed);
+                bytesFlushed = 0;
+            }
+        }
+
+        private void onNetworkOverflow(
+            long traceId)
+        {
+            counters.overflows.getAsLong();
+            doApplicationResetIfNecessary(traceId);
+            doCleanup(traceId);
+        }
+
+        // copies small frames to coalesce them until the next poller cycle, see onNetworkFlush
+        private boolean doNetworkEnqueue(
+            DirectBuffer buffer,
+            int offset,
+            int length)
+        {
+            final boolean enqueued =
+                !networkKey.isRegistered(OP_WRITE) &&
+                networkQueue.length() + length <= writeCoalesceLimit &&
+                networkQueue.append(initialId, buffer, offset, length);
+
+            if (enqueued)
+            {
+                onNetworkQueued();
+                networkKey.scheduleFlush();
+            }
+
+            return enqueued;
+        }
+
         private void doNetworkShutdownOutput(
             long traceId)
         {
@@ -574,10 +1272,14 @@ public class TcpClientFactory implements StreamFactory
 
             try
             {
-                if (network.isConnectionPending())
+                if (resolvingHost != null || attemptCount != 0)
+                {
+                    doCloseNetwork();
+                }
+                else if (network.isConnectionPending())
                 {
                     networkKey.clear(OP_CONNECT);
-                    doCloseNetwork(network);
+                    doCloseNetwork();
                 }
                 else
                 {
@@ -586,7 +1288,7 @@ public class TcpClientFactory implements StreamFactory
 
                     if (network.socket().isInputShutdown())
                     {
-                        doCloseNetwork(network);
+                        doCloseNetwork();
                     }
                 }
             }
@@ -598,11 +1300,48 @@ public class TcpClientFactory implements StreamFactory
 
         private void cleanupNetworkSlotIfNecessary()
         {
-            if (networkSlot != NO_SLOT)
+            if (!networkQueue.isEmpty())
             {
-                bufferPool.release(networkSlot);
-                networkSlot = NO_SLOT;
-                networkSlotOffset = 0;
+                networkQueue.release();
+            }
+        }
+
+        // recycles exactly once per stream, even if the channel was already closed by a failed connect
+        private void doCloseNetwork()
+        {
+            if (!closed)
+            {
+                closed = true;
+
+                if (attemptCount != 0)
+                {
+                    doCloseAttempts();
+                }
+
+                connectTimer.cancel();
+                idleTimer.cancel();
+                writeTimer.cancel();
+
+                if (counters != null)
+                {
+                    counters.connectionReadSizes.record(connectionBytesRead);
+                    counters.connectionWriteSizes.record(connectionBytesWritten);
+                }
+
+                if (resolvingHost != null)
+                {
+                    resolver.cancel(resolvingHost, resolvingHandler);
+                    resolvingHost = null;
+                }
+
+                cleanupNetworkSlotIfNecessary();
+
+                // opened only once connecting, see doNetworkConnect and doNetworkAttempt
+                if (network != null)
+                {
+                    TcpClientFactory.this.doCloseNetwork(network);
+                }
+                clients.push(this);
             }
         }
 
@@ -612,39 +1351,62 @@ public class TcpClientFactory implements StreamFactory
             int index,
             int length)
         {
-            switch (msgTypeId)
+            // ignore frames once closed, or for streams of a previous connection, see doCloseNetwork
+            if (!closed)
             {
-            case BeginFW.TYPE_ID:
-                final BeginFW begin = beginRO.wrap(buffer, index, index + length);
-                onApplicationBegin(begin);
-                break;
-            case DataFW.TYPE_ID:
-                final DataFW data = dataRO.wrap(buffer, index, index + length);
-                onApplicationData(data);
-                break;
-            case EndFW.TYPE_ID:
-                final EndFW end = endRO.wrap(buffer, index, index + length);
-                onApplicationEnd(end);
-                break;
-            case AbortFW.TYPE_ID:
-                final AbortFW abort = abortRO.wrap(buffer, index, index + length);
-                onApplicationAbort(abort);
-                break;
-            case ResetFW.TYPE_ID:
-                final ResetFW reset = resetRO.wrap(buffer, index, index + length);
-                onApplicationReset(reset);
-                break;
-            case WindowFW.TYPE_ID:
-                final WindowFW window = windowRO.wrap(buffer, index, index + length);
-                onApplicationWindow(window);
-                break;
+                switch (msgTypeId)
+                {
+                case BeginFW.TYPE_ID:
+                    final BeginFW begin = beginRO.wrap(buffer, index, index + length);
+                    if (begin.streamId() == initialId)
+                    {
+                        onApplicationBegin(begin);
+                    }
+                    break;
+                case DataFW.TYPE_ID:
+                    final DataFW data = dataRO.wrap(buffer, index, index + length);
+                    if (data.streamId() == initialId)
+                    {
+                        onApplicationData(data);
+                    }
+                    break;
+                case EndFW.TYPE_ID:
+                    final EndFW end = endRO.wrap(buffer, index, index + length);
+                    if (end.streamId() == initialId)
+                    {
+                        onApplicationEnd(end);
+                    }
+                    break;
+                case AbortFW.TYPE_ID:
+                    final AbortFW abort = abortRO.wrap(buffer, index, index + length);
+                    if (abort.streamId() == initialId)
+                    {
+                        onApplicationAbort(abort);
+                    }
+                    break;
+                case ResetFW.TYPE_ID:
+                    final ResetFW reset = resetRO.wrap(buffer, index, index + length);
+                    if (reset.streamId() == replyId)
+                    {
+                        onApplicationReset(reset);
+                    }
+                    break;
+                case WindowFW.TYPE_ID:
+                    final WindowFW window = windowRO.wrap(buffer, index, index + length);
+                    if (window.streamId() == replyId)
+                    {
+                        onApplicationWindow(window);
+                    }
+                    break;
+                }
             }
         }
 
         private void onApplicationBegin(
             BeginFW begin)
         {
-            assert TcpState.initialOpening(state);
+            // connect deferred while the host name is resolving, see doResolve
+            assert TcpState.initialOpening(state) || resolvingHost != null;
         }
 
         private void onApplicationData(
@@ -664,38 +1426,26 @@ public class TcpClientFactory implements StreamFactory
             {
                 final OctetsFW payload = data.payload();
 
-                DirectBuffer buffer = payload.buffer();
-                int offset = payload.offset();
-                int length = payload.sizeof();
+                final DirectBuffer buffer = payload.buffer();
+                final int offset = payload.offset();
+                final int length = payload.sizeof();
 
                 assert reserved == length;
                 assert length > 0;
 
-                ByteBuffer byteBuffer;
+                final boolean coalescing = !networkQueue.isEmpty() || networkKey.isFlushScheduled();
 
-                if (networkSlot != NO_SLOT)
+                if (!coalescing || !doNetworkEnqueue(buffer, offset, length))
                 {
-                    final MutableDirectBuffer slotBuffer = bufferPool.buffer(networkSlot);
-                    slotBuffer.putBytes(networkSlotOffset, buffer, offset, length);
-                    networkSlotOffset += length;
-
-                    final ByteBuffer slotByteBuffer = bufferPool.byteBuffer(networkSlot);
-                    slotByteBuffer.limit(slotByteBuffer.position() + networkSlotOffset);
+                    final ByteBuffer byteBuffer = payloadByteBuffer(buffer, offset, length);
+                    final int bytesWritten = doNetworkWrite(buffer, offset, length, byteBuffer, traceId);
 
-                    buffer = slotBuffer;
-                    offset = 0;
-                    length = networkSlotOffset;
-                    byteBuffer = slotByteBuffer;
-                }
-                else
-                {
-                    writeByteBuffer.clear();
-                    buffer.getBytes(offset, writeByteBuffer, length);
-                    writeByteBuffer.flip();
-                    byteBuffer = writeByteBuffer;
+                    if (!coalescing && bytesWritten == length)
+                    {
+                        // coalesce any further small frames until the start of the next poller cycle
+                        networkKey.scheduleFlush();
+                    }
                 }
-
-                doNetworkWrite(buffer, offset, length, byteBuffer, traceId);
             }
         }
 
@@ -706,7 +1456,7 @@ public class TcpClientFactory implements StreamFactory
 
             state = TcpState.closingInitial(state);
 
-            if (networkSlot == NO_SLOT)
+            if (networkQueue.isEmpty())
             {
                 doNetworkShutdownOutput(traceId);
             }
@@ -766,21 +1516,19 @@ public class TcpClientFactory implements StreamFactory
             final InetSocketAddress localAddress = (InetSocketAddress) network.getLocalAddress();
             final InetSocketAddress remoteAddress = (InetSocketAddress) network.getRemoteAddress();
 
-            router.setThrottle(replyId, this::onApplication);
+            router.setThrottle(replyId, applicationHandler);
             doBegin(application, routeId, replyId, traceId, localAddress, remoteAddress);
             counters.opensWritten.getAsLong();
             state = TcpState.openingReply(state);
         }
 
         private void doApplicationData(
-            DirectBuffer buffer,
-            int offset,
             int length)
         {
             final long traceId = supplyTraceId.getAsLong();
             final int reserved = length + replyPadding;
 
-            doData(application, routeId, replyId, traceId, replyBudgetId, reserved, buffer, offset, length);
+            doData(application, routeId, replyId, traceId, replyBudgetId, reserved, length);
 
             replyBudget -= reserved;
 
@@ -846,12 +1594,48 @@ public class TcpClientFactory implements StreamFactory
             doApplicationAbortIfNecessary(traceId);
             doApplicationResetIfNecessary(traceId);
 
-            doCloseNetwork(network);
+            doCloseNetwork();
 
             cleanupNetworkSlotIfNecessary();
         }
     }
 
+    private ByteBuffer payloadByteBuffer(
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        final ByteBuffer byteBuffer = buffer.byteBuffer();
+
+        ByteBuffer payloadByteBuffer;
+
+        if (byteBuffer != null)
+        {
+            // wrap each stream buffer once, then re-slice per frame
+            if (byteBuffer != streamByteBuffer)
+            {
+                streamByteBuffer = byteBuffer;
+                streamByteBufferRO = byteBuffer.duplicate();
+            }
+
+            final int position = buffer.wrapAdjustment() + offset;
+
+            payloadByteBuffer = streamByteBufferRO;
+            ((Buffer) payloadByteBuffer).clear();
+            ((Buffer) payloadByteBuffer).limit(position + length);
+            ((Buffer) payloadByteBuffer).position(position);
+        }
+        else
+        {
+            writeByteBuffer.clear();
+            buffer.getBytes(offset, writeByteBuffer, length);
+            writeByteBuffer.flip();
+            payloadByteBuffer = writeByteBuffer;
+        }
+
+        return payloadByteBuffer;
+    }
+
     private void doBegin(
         MessageConsumer receiver,
         long routeId,
@@ -878,17 +1662,18 @@ public class TcpClientFactory implements StreamFactory
         long traceId,
         long budgetId,
         int reserved,
-        DirectBuffer payload,
-        int offset,
         int length)
     {
-        DataFW data = dataRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+        // payload already read into readBuffer at DataFW.FIELD_OFFSET_PAYLOAD
+        readPayloadLength = length;
+
+        DataFW data = dataRW.wrap(readBuffer, 0, readBuffer.capacity())
                 .routeId(routeId)
                 .streamId(streamId)
                 .traceId(traceId)
                 .budgetId(budgetId)
                 .reserved(reserved)
-                .payload(payload, offset, length)
+                .payload(readPayload)
                 .build();
 
         stream.accept(data.typeId(), data.buffer(), data.offset(), data.sizeof());
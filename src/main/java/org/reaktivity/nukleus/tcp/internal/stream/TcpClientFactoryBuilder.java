@@ -15,6 +15,7 @@
  */
 package org.reaktivity.nukleus.tcp.internal.stream;
 
+import java.net.InetSocketAddress;
 import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.LongSupplier;
@@ -32,12 +33,17 @@ import org.reaktivity.nukleus.tcp.internal.TcpConfiguration;
 import org.reaktivity.nukleus.tcp.internal.TcpCounters;
 import org.reaktivity.nukleus.tcp.internal.TcpRouteCounters;
 import org.reaktivity.nukleus.tcp.internal.poller.Poller;
+import org.reaktivity.nukleus.tcp.internal.resolver.Resolver;
+import org.reaktivity.nukleus.tcp.internal.util.CIDR;
 
 public class TcpClientFactoryBuilder implements StreamFactoryBuilder
 {
     private final TcpConfiguration config;
     private final Poller poller;
+    private final Resolver resolver;
     private final Long2ObjectHashMap<TcpRouteCounters> countersByRouteId;
+    private final Long2ObjectHashMap<TcpConnectPool> connectPoolsByRouteId;
+    private final Long2ObjectHashMap<CIDR> cidrsByRouteId;
 
     private RouteManager router;
     private Supplier<BufferPool> supplyBufferPool;
@@ -49,15 +55,54 @@ public class TcpClientFactoryBuilder implements StreamFactoryBuilder
 
     private Function<String, LongSupplier> supplyCounter;
     private Function<String, LongConsumer> supplyAccumulator;
+    private TcpCounters counters;
 
     public TcpClientFactoryBuilder(
         TcpConfiguration config,
         Long2ObjectHashMap<TcpRouteCounters> countersByRouteId,
-        Poller poller)
+        Long2ObjectHashMap<TcpConnectPool> connectPoolsByRouteId,
+        Long2ObjectHashMap<CIDR> cidrsByRouteId,
+        Poller poller,
+        Resolver resolver)
     {
         this.config = config;
         this.countersByRouteId = countersByRouteId;
+        this.connectPoolsByRouteId = connectPoolsByRouteId;
+        this.cidrsByRouteId = cidrsByRouteId;
         this.poller = poller;
+        this.resolver = resolver;
+    }
+
+    // registers route counters when routed, ahead of the first stream on the route
+    public void supplyRouteCounters(
+        long routeId)
+    {
+        if (counters != null)
+        {
+            counters.supplyRoute(routeId);
+        }
+    }
+
+    // establishes pooled connections when routed, ahead of the first stream on the route
+    public void supplyConnectPool(
+        long routeId,
+        String host,
+        int port)
+    {
+        if (config.connectPoolMin() > 0 && !connectPoolsByRouteId.containsKey(routeId))
+        {
+            final TcpConnectPool connectPool =
+                    new TcpConnectPool(poller, config.connectPoolMin(), config.connectPoolMax(), config.keepalive());
+            connectPoolsByRouteId.put(routeId, connectPool);
+
+            resolver.resolve(host, addresses ->
+            {
+                if (addresses.length != 0 && connectPoolsByRouteId.get(routeId) == connectPool)
+                {
+                    connectPool.connect(new InetSocketAddress(addresses[0], port));
+                }
+            });
+        }
     }
 
     @Override
@@ -135,17 +180,21 @@ public class TcpClientFactoryBuilder implements StreamFactoryBuilder
     public StreamFactory build()
     {
         final BufferPool bufferPool = supplyBufferPool.get();
-        final TcpCounters counters = new TcpCounters(supplyCounter, supplyAccumulator, countersByRouteId);
+        final TcpCounters counters = new TcpCounters(supplyCounter, supplyAccumulator, countersByRouteId, config.histograms());
+        this.counters = counters;
 
         return new TcpClientFactory(
             config,
             router,
             poller,
+            resolver,
             writeBuffer,
             bufferPool,
             supplyReplyId,
             supplyTraceId,
             supplyTypeId,
-            counters);
+            counters,
+            connectPoolsByRouteId,
+            cidrsByRouteId);
     }
 }
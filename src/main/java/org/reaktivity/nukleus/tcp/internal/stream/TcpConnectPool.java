@@ -0,0 +1,270 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static java.net.StandardSocketOptions.SO_KEEPALIVE;
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.reaktivity.nukleus.tcp.internal.poller.Poller.NO_TIMER;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.ToIntFunction;
+
+import org.reaktivity.nukleus.tcp.internal.poller.Poller;
+import org.reaktivity.nukleus.tcp.internal.poller.PollerKey;
+
+/**
+ * Keeps connections to a client route's remote address established ahead of new streams.
+ * <p>
+ * Starts with {@code minimum} idle connections, growing towards {@code maximum} each time a stream finds none idle.
+ * Idle connections are watched for reads, so connections closed by the peer are evicted and replaced, backing off
+ * exponentially while the peer keeps closing them.
+ * <p>
+ * Pooling requires a client-first upstream protocol, since bytes sent by the peer before a stream acquires the
+ * connection cannot be delivered to that stream. Once an idle connection receives data, the upstream is taken to
+ * speak first, such as a server greeting, and the pool stops pooling so that streams connect on demand instead.
+ */
+public final class TcpConnectPool
+{
+    private static final long BACKOFF_INITIAL = MILLISECONDS.toNanos(10L);
+    private static final long BACKOFF_MAXIMUM = MILLISECONDS.toNanos(1000L);
+
+    private final Poller poller;
+    private final int maximum;
+    private final boolean keepalive;
+    private final Deque<PollerKey> idleKeys;
+    private final Deque<PollerKey> pendingKeys;
+    private final ToIntFunction<PollerKey> connectHandler;
+    private final ToIntFunction<PollerKey> readHandler;
+    private final Runnable replenishHandler;
+    private final ByteBuffer probeBuffer;
+
+    private InetSocketAddress remoteAddress;
+    private int target;
+    private boolean closed;
+    private boolean serverFirst;
+    private long backoff;
+    private long backoffTimerId;
+
+    TcpConnectPool(
+        Poller poller,
+        int minimum,
+        int maximum,
+        boolean keepalive)
+    {
+        this.poller = poller;
+        this.target = minimum;
+        this.maximum = Math.max(minimum, maximum);
+        this.keepalive = keepalive;
+        this.idleKeys = new ArrayDeque<>();
+        this.pendingKeys = new ArrayDeque<>();
+        this.connectHandler = this::onConnect;
+        this.readHandler = this::onReadable;
+        this.replenishHandler = this::onBackoffExpired;
+        this.probeBuffer = ByteBuffer.allocate(1);
+        this.backoff = BACKOFF_INITIAL;
+        this.backoffTimerId = NO_TIMER;
+    }
+
+    public void close()
+    {
+        closed = true;
+
+        poller.cancelTimer(backoffTimerId);
+        backoffTimerId = NO_TIMER;
+
+        doCloseConnections();
+    }
+
+    boolean matches(
+        InetAddress address,
+        int port)
+    {
+        return remoteAddress != null && remoteAddress.getPort() == port && remoteAddress.getAddress().equals(address);
+    }
+
+    // connects to the remote address once resolved, replacing any connections to a previous address
+    void connect(
+        InetSocketAddress remoteAddress)
+    {
+        if (!closed && !remoteAddress.equals(this.remoteAddress))
+        {
+            doCloseConnections();
+            this.remoteAddress = remoteAddress;
+            replenish();
+        }
+    }
+
+    // @return key of a connected channel without handlers or interest, or null if none idle
+    PollerKey acquire()
+    {
+        final PollerKey key = idleKeys.pollFirst();
+
+        if (key != null)
+        {
+            key.clear(OP_READ);
+            key.handler(OP_READ, null);
+
+            // the peer kept this connection open, so stop backing off
+            backoff = BACKOFF_INITIAL;
+        }
+        else if (target < maximum)
+        {
+            target++;
+        }
+
+        if (backoffTimerId == NO_TIMER)
+        {
+            replenish();
+        }
+
+        return key;
+    }
+
+    private void replenish()
+    {
+        for (int i = idleKeys.size() + pendingKeys.size(); !closed && !serverFirst && remoteAddress != null && i < target; i++)
+        {
+            doConnect();
+        }
+    }
+
+    private void onBackoffExpired()
+    {
+        backoffTimerId = NO_TIMER;
+        replenish();
+    }
+
+    private void doCloseConnections()
+    {
+        idleKeys.forEach(k -> poller.doClose(k.channel()));
+        idleKeys.clear();
+
+        pendingKeys.forEach(k -> poller.doClose(k.channel()));
+        pendingKeys.clear();
+    }
+
+    private void doConnect()
+    {
+        SocketChannel channel = null;
+
+        try
+        {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(TCP_NODELAY, true);
+            channel.setOption(SO_KEEPALIVE, keepalive);
+
+            if (channel.connect(remoteAddress))
+            {
+                onConnected(poller.doRegister(channel, 0, null));
+            }
+            else
+            {
+                pendingKeys.add(poller.doRegister(channel, OP_CONNECT, connectHandler));
+            }
+        }
+        catch (UnresolvedAddressException | IOException ex)
+        {
+            // not retried until the next acquire, avoiding a reconnect loop while unreachable
+            poller.doClose(channel);
+        }
+    }
+
+    private int onConnect(
+        PollerKey key)
+    {
+        final SocketChannel channel = (SocketChannel) key.channel();
+
+        pendingKeys.remove(key);
+
+        try
+        {
+            key.clear(OP_CONNECT);
+            channel.finishConnect();
+            onConnected(key);
+        }
+        catch (UnresolvedAddressException | IOException ex)
+        {
+            poller.doClose(channel);
+        }
+
+        return 1;
+    }
+
+    private void onConnected(
+        PollerKey key)
+    {
+        if (closed || idleKeys.size() >= maximum)
+        {
+            poller.doClose(key.channel());
+        }
+        else
+        {
+            key.handler(OP_READ, readHandler);
+            key.register(OP_READ);
+            idleKeys.add(key);
+        }
+    }
+
+    private int onReadable(
+        PollerKey key)
+    {
+        final SocketChannel channel = (SocketChannel) key.channel();
+
+        int bytesRead;
+
+        try
+        {
+            probeBuffer.clear();
+            bytesRead = channel.read(probeBuffer);
+        }
+        catch (IOException ex)
+        {
+            bytesRead = -1;
+        }
+
+        if (bytesRead > 0)
+        {
+            // the upstream speaks first, so pooled connections would lose what it sent before being acquired
+            serverFirst = true;
+            doCloseConnections();
+        }
+        else if (bytesRead < 0)
+        {
+            idleKeys.remove(key);
+            poller.doClose(channel);
+
+            // avoids a reconnect loop against a peer that closes each connection as soon as it is established
+            if (backoffTimerId == NO_TIMER)
+            {
+                backoffTimerId = poller.scheduleTimer(backoff, replenishHandler);
+                backoff = Math.min(backoff << 1, BACKOFF_MAXIMUM);
+            }
+        }
+
+        return 1;
+    }
+}
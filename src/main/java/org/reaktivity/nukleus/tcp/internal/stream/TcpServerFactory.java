@@ -19,9 +19,8 @@ import static java.nio.ByteOrder.nativeOrder;
 import static java.nio.channels.SelectionKey.OP_READ;
 import static java.nio.channels.SelectionKey.OP_WRITE;
 import static java.util.Objects.requireNonNull;
-import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.reaktivity.nukleus.tcp.internal.TcpNukleus.WRITE_SPIN_COUNT;
-import static org.reaktivity.nukleus.tcp.internal.util.IpUtil.compareAddresses;
 import static org.reaktivity.nukleus.tcp.internal.util.IpUtil.socketAddress;
 
 import java.io.IOException;
@@ -30,7 +29,9 @@ import java.net.StandardSocketOptions;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.util.function.LongFunction;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
 import java.util.function.ToIntFunction;
@@ -43,8 +44,6 @@ import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.nukleus.function.MessageConsumer;
-import org.reaktivity.nukleus.function.MessageFunction;
-import org.reaktivity.nukleus.function.MessagePredicate;
 import org.reaktivity.nukleus.route.RouteManager;
 import org.reaktivity.nukleus.stream.StreamFactory;
 import org.reaktivity.nukleus.tcp.internal.TcpConfiguration;
@@ -55,7 +54,6 @@ import org.reaktivity.nukleus.tcp.internal.poller.Poller;
 import org.reaktivity.nukleus.tcp.internal.poller.PollerKey;
 import org.reaktivity.nukleus.tcp.internal.types.Flyweight;
 import org.reaktivity.nukleus.tcp.internal.types.OctetsFW;
-import org.reaktivity.nukleus.tcp.internal.types.control.RouteFW;
 import org.reaktivity.nukleus.tcp.internal.types.stream.AbortFW;
 import org.reaktivity.nukleus.tcp.internal.types.stream.BeginFW;
 import org.reaktivity.nukleus.tcp.internal.types.stream.DataFW;
@@ -66,7 +64,7 @@ import org.reaktivity.nukleus.tcp.internal.types.stream.WindowFW;
 
 public class TcpServerFactory implements StreamFactory
 {
-    private final RouteFW routeRO = new RouteFW();
+    private static final long NO_TIMESTAMP = -1L;
 
     private final BeginFW beginRO = new BeginFW();
     private final DataFW dataRO = new DataFW();
@@ -86,23 +84,36 @@ public class TcpServerFactory implements StreamFactory
 
     private final TcpBeginExFW.Builder beginExRW = new TcpBeginExFW.Builder();
 
-    private final MessageFunction<RouteFW> wrapRoute = (t, b, i, l) -> routeRO.wrap(b, i, i + l);
-
     private final RouteManager router;
     private final LongUnaryOperator supplyInitialId;
     private final LongUnaryOperator supplyReplyId;
     private final LongSupplier supplyTraceId;
     private final Long2ObjectHashMap<TcpServer> correlations;
+    private final Deque<TcpServer> servers;
     private final Poller poller;
     private final Runnable onNetworkClosed;
 
     private final BufferPool bufferPool;
     private final ByteBuffer readByteBuffer;
     private final MutableDirectBuffer readBuffer;
+    private final int readPayloadLimit;
+    private final Flyweight.Builder.Visitor readPayloadVisitor;
+    private final Consumer<OctetsFW.Builder> readPayload;
     private final MutableDirectBuffer writeBuffer;
     private final ByteBuffer writeByteBuffer;
+    private final MutableDirectBuffer writeQueueBufferRW;
+    private final ByteBuffer[] writeQueueByteBuffers;
+    private final ByteBuffer[] writeGatherByteBuffers;
+    private final int writeCoalesceLimit;
+    private final int windowSize;
     private final int windowThreshold;
     private final int tcpTypeId;
+    private final long idleTimeout;
+    private final long writeTimeout;
+
+    private int readPayloadLength;
+    private ByteBuffer streamByteBuffer;
+    private ByteBuffer streamByteBufferRO;
 
     final TcpCounters counters;
 
@@ -131,11 +142,21 @@ public class TcpServerFactory implements StreamFactory
         this.onNetworkClosed = requireNonNull(onChannelClosed);
         this.tcpTypeId = supplyTypeId.applyAsInt(TcpNukleus.NAME);
 
-        final int readBufferSize = writeBuffer.capacity() - DataFW.FIELD_OFFSET_PAYLOAD;
-        this.readByteBuffer = ByteBuffer.allocateDirect(readBufferSize).order(nativeOrder());
+        this.readByteBuffer = ByteBuffer.allocateDirect(writeBuffer.capacity()).order(nativeOrder());
         this.readBuffer = new UnsafeBuffer(readByteBuffer);
-        this.windowThreshold = (bufferPool.slotCapacity() * config.windowThreshold()) / 100;
+        this.readPayloadLimit = readBuffer.capacity() - DataFW.FIELD_OFFSET_PAYLOAD;
+        this.readPayloadVisitor = (b, o, l) -> readPayloadLength;
+        this.readPayload = p -> p.set(readPayloadVisitor);
+        this.writeQueueBufferRW = new UnsafeBuffer(new byte[0]);
+        this.writeQueueByteBuffers = new ByteBuffer[config.writeQueueSlots()];
+        this.writeGatherByteBuffers = new ByteBuffer[config.writeQueueSlots() + 1];
+        this.writeCoalesceLimit = bufferPool.slotCapacity();
+        this.windowSize = bufferPool.slotCapacity() * config.writeQueueSlots();
+        this.windowThreshold = (windowSize * config.windowThreshold()) / 100;
         this.correlations = new Long2ObjectHashMap<>();
+        this.servers = new ArrayDeque<>();
+        this.idleTimeout = MILLISECONDS.toNanos(config.idleTimeout());
+        this.writeTimeout = MILLISECONDS.toNanos(config.writeTimeout());
     }
 
     @Override
@@ -161,32 +182,24 @@ public class TcpServerFactory implements StreamFactory
 
     void onAccepted(
         SocketChannel network,
-        InetSocketAddress address,
-        LongFunction<InetSocketAddress> lookupAddress)
+        long routeId)
     {
-        final MessagePredicate filter = (t, b, i, l) ->
+        TcpServer server = servers.poll();
+        if (server == null)
         {
-            final RouteFW route = wrapRoute.apply(t, b, i, l);
-            final long routeId = route.correlationId();
-            final InetSocketAddress routedAddress = lookupAddress.apply(routeId);
-            return compareAddresses(address, routedAddress) == 0;
-        };
-
-        final RouteFW route = router.resolveExternal(0L, filter, wrapRoute);
+            server = new TcpServer();
+        }
 
-        if (route != null)
-        {
-            final long routeId = route.correlationId();
+        server.init(routeId, network);
+        correlations.put(server.replyId, server);
 
-            final TcpServer server = new TcpServer(routeId, network);
-            correlations.put(server.replyId, server);
+        server.onNetworkAccepted();
+    }
 
-            server.onNetworkAccepted();
-        }
-        else
-        {
-            doCloseNetwork(network);
-        }
+    void onRejected(
+        SocketChannel network)
+    {
+        doCloseNetwork(network);
     }
 
     private MessageConsumer newReplyStream(
@@ -199,7 +212,7 @@ public class TcpServerFactory implements StreamFactory
         MessageConsumer newStream = null;
         if (server != null)
         {
-            newStream = server::onApplication;
+            newStream = server.applicationHandler;
         }
 
         return newStream;
@@ -208,19 +221,28 @@ public class TcpServerFactory implements StreamFactory
     private void doCloseNetwork(
         SocketChannel network)
     {
-        CloseHelper.quietClose(network);
+        poller.doClose(network);
         onNetworkClosed.run();
     }
 
+    // recycled when the network channel closes, see doCloseNetwork
     private final class TcpServer
     {
-        private final long routeId;
-        private final long initialId;
-        private final long replyId;
-        private final MessageConsumer application;
-        private final SocketChannel network;
-        private final PollerKey networkKey;
-        private final TcpRouteCounters counters;
+        private final TcpWriteQueue networkQueue;
+        private final MessageConsumer applicationHandler;
+        private final ToIntFunction<PollerKey> readHandler;
+        private final ToIntFunction<PollerKey> writeHandler;
+        private final ToIntFunction<PollerKey> flushHandler;
+        private final TcpTimeout idleTimer;
+        private final TcpTimeout writeTimer;
+
+        private long routeId;
+        private long initialId;
+        private long replyId;
+        private MessageConsumer application;
+        private SocketChannel network;
+        private PollerKey networkKey;
+        private TcpRouteCounters counters;
 
         private long initialBudgetId;
         private int initialBudget;
@@ -229,11 +251,27 @@ public class TcpServerFactory implements StreamFactory
         private int replyBudget;
 
         private int state;
-        private int networkSlot = NO_SLOT;
-        private int networkSlotOffset;
         private int bytesFlushed;
+        private boolean closed;
 
-        private TcpServer(
+        private long acceptedAt;
+        private long queuedAt;
+        private boolean firstByteRead;
+        private long connectionBytesRead;
+        private long connectionBytesWritten;
+
+        private TcpServer()
+        {
+            this.networkQueue = new TcpWriteQueue(bufferPool, writeQueueBufferRW, writeQueueByteBuffers);
+            this.applicationHandler = this::onApplication;
+            this.readHandler = this::onNetworkReadable;
+            this.writeHandler = this::onNetworkWritable;
+            this.flushHandler = this::onNetworkFlush;
+            this.idleTimer = new TcpTimeout(poller, idleTimeout, this::onNetworkTimeout);
+            this.writeTimer = new TcpTimeout(poller, writeTimeout, this::onNetworkTimeout);
+        }
+
+        private void init(
             long routeId,
             SocketChannel network)
         {
@@ -244,14 +282,28 @@ public class TcpServerFactory implements StreamFactory
             this.network = network;
             this.networkKey = poller.doRegister(network, 0, null);
             this.counters = TcpServerFactory.this.counters.supplyRoute(routeId);
+            this.initialBudgetId = 0L;
+            this.initialBudget = 0;
+            this.initialPadding = 0;
+            this.replyBudget = 0;
+            this.state = 0;
+            this.bytesFlushed = 0;
+            this.closed = false;
+            this.acceptedAt = TcpServerFactory.this.counters.timestamp();
+            this.queuedAt = NO_TIMESTAMP;
+            this.firstByteRead = false;
+            this.connectionBytesRead = 0L;
+            this.connectionBytesWritten = 0L;
         }
 
         private void onNetworkAccepted()
         {
             try
             {
-                networkKey.handler(OP_READ, this::onNetworkReadable);
-                networkKey.handler(OP_WRITE, this::onNetworkWritable);
+                networkKey.handler(OP_READ, readHandler);
+                networkKey.handler(OP_WRITE, writeHandler);
+                networkKey.flushHandler(flushHandler);
+                idleTimer.start();
 
                 doApplicationBegin();
             }
@@ -266,10 +318,13 @@ public class TcpServerFactory implements StreamFactory
         {
             assert initialBudget > initialPadding;
 
-            final int limit = Math.min(initialBudget - initialPadding, readBuffer.capacity());
+            final int limit = Math.min(initialBudget - initialPadding, readPayloadLimit);
+
+            // read directly into the payload of the DATA frame, see doData
+            ((Buffer) readByteBuffer).position(DataFW.FIELD_OFFSET_PAYLOAD);
+            ((Buffer) readByteBuffer).limit(DataFW.FIELD_OFFSET_PAYLOAD + limit);
 
-            ((Buffer) readByteBuffer).position(0);
-            ((Buffer) readByteBuffer).limit(limit);
+            int workDone = 1;
 
             try
             {
@@ -284,12 +339,32 @@ public class TcpServerFactory implements StreamFactory
 
                     if (network.socket().isOutputShutdown())
                     {
-                        doCloseNetwork(network);
+                        doCloseNetwork();
                     }
                 }
                 else if (bytesRead != 0)
                 {
-                    doApplicationData(readBuffer, 0, bytesRead);
+                    idleTimer.touch();
+                    counters.readSizes.record(bytesRead);
+                    counters.bytesRead.accept(bytesRead);
+                    connectionBytesRead += bytesRead;
+
+                    if (!firstByteRead)
+                    {
+                        counters.firstByteTimes.record(TcpServerFactory.this.counters.timestamp() - acceptedAt);
+                        firstByteRead = true;
+                    }
+                    doApplicationData(bytesRead);
+
+                    if (bytesRead < limit)
+                    {
+                        key.drained(OP_READ);
+                    }
+                }
+                else
+                {
+                    // drained, no further read readiness until the next edge
+                    workDone = 0;
                 }
             }
             catch (IOException ex)
@@ -297,13 +372,13 @@ public class TcpServerFactory implements StreamFactory
                 doCleanup(supplyTraceId.getAsLong());
             }
 
-            return 1;
+            return workDone;
         }
 
         private int onNetworkWritable(
             PollerKey key)
         {
-            if (networkSlot == NO_SLOT)
+            if (networkQueue.isEmpty())
             {
                 counters.writeopsNoSlot.getAsLong();
                 assert key == networkKey;
@@ -311,17 +386,27 @@ public class TcpServerFactory implements StreamFactory
             }
             else
             {
-                assert networkSlot != NO_SLOT;
-
                 long traceId = supplyTraceId.getAsLong();
-                DirectBuffer buffer = bufferPool.buffer(networkSlot);
-                ByteBuffer byteBuffer = bufferPool.byteBuffer(networkSlot);
-                byteBuffer.limit(byteBuffer.position() + networkSlotOffset);
+                return doNetworkWriteQueue(traceId);
+            }
+        }
+
+        private int onNetworkFlush(
+            PollerKey key)
+        {
+            int bytesWritten = 0;
 
-                return doNetworkWrite(buffer, 0, networkSlotOffset, byteBuffer, traceId);
+            // frames queued behind a partial write are flushed when writable, see onNetworkWritable
+            if (!networkQueue.isEmpty() && !key.isRegistered(OP_WRITE))
+            {
+                long traceId = supplyTraceId.getAsLong();
+                bytesWritten = doNetworkWriteQueue(traceId);
             }
+
+            return bytesWritten;
         }
 
+        // writes the frame in place, gathered behind any queued bytes, and queues only the unwritten remainder
         private int doNetworkWrite(
             DirectBuffer buffer,
             int offset,
@@ -329,54 +414,121 @@ public class TcpServerFactory implements StreamFactory
             ByteBuffer byteBuffer,
             long traceId)
         {
+            final int queuedLength = networkQueue.length();
+            final int slotCount = networkQueue.slotCount();
+
             int bytesWritten = 0;
 
             try
             {
-                for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                if (slotCount == 0)
                 {
-                    bytesWritten = network.write(byteBuffer);
+                    for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                    {
+                        bytesWritten = network.write(byteBuffer);
+                    }
+                }
+                else
+                {
+                    final ByteBuffer[] byteBuffers = writeGatherByteBuffers;
+                    System.arraycopy(networkQueue.byteBuffers(), 0, byteBuffers, 0, slotCount);
+                    byteBuffers[slotCount] = byteBuffer;
+
+                    for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                    {
+                        bytesWritten = (int) network.write(byteBuffers, 0, slotCount + 1);
+                    }
                 }
 
+                counters.bytesWritten.accept(bytesWritten);
+                connectionBytesWritten += bytesWritten;
+
                 bytesFlushed += bytesWritten;
+                counters.writeSizes.record(bytesWritten);
 
-                if (bytesWritten < length)
+                if (bytesWritten > 0)
+                {
+                    // only progress is activity, so a peer that stops reading still times out
+                    idleTimer.touch();
+                    writeTimer.touch();
+                }
+
+                final int frameBytesWritten = Math.max(bytesWritten - queuedLength, 0);
+
+                if (frameBytesWritten < length)
                 {
-                    if (networkSlot == NO_SLOT)
+                    if (bytesWritten < queuedLength)
                     {
-                        networkSlot = bufferPool.acquire(replyId);
+                        networkQueue.consume(bytesWritten);
+                    }
+                    else
+                    {
+                        cleanupNetworkSlotIfNecessary();
                     }
 
-                    if (networkSlot == NO_SLOT)
+                    final int remaining = length - frameBytesWritten;
+
+                    if (networkQueue.append(replyId, buffer, offset + frameBytesWritten, remaining))
                     {
-                        counters.overflows.getAsLong();
-                        doApplicationResetIfNecessary(traceId);
-                        doCleanup(traceId);
+                        onNetworkWritePartial(networkQueue.length());
                     }
                     else
                     {
-                        final MutableDirectBuffer slotBuffer = bufferPool.buffer(networkSlot);
-                        slotBuffer.putBytes(0, buffer, offset + bytesWritten, length - bytesWritten);
-                        networkSlotOffset = length - bytesWritten;
-
-                        networkKey.register(OP_WRITE);
-                        counters.writeops.getAsLong();
+                        onNetworkOverflow(traceId);
                     }
                 }
                 else
                 {
-                    cleanupNetworkSlotIfNecessary();
-                    networkKey.clear(OP_WRITE);
+                    onNetworkWriteComplete(traceId);
+                }
+            }
+            catch (IOException ex)
+            {
+                doCleanup(traceId);
+            }
 
-                    if (TcpState.replyClosing(state))
-                    {
-                        doNetworkShutdownOutput(traceId);
-                    }
-                    else if (bytesFlushed >= windowThreshold)
-                    {
-                        doApplicationWindow(traceId, bytesFlushed);
-                        bytesFlushed = 0;
-                    }
+            return bytesWritten;
+        }
+
+        private int doNetworkWriteQueue(
+            long traceId)
+        {
+            final int length = networkQueue.length();
+            final int slotCount = networkQueue.slotCount();
+            final ByteBuffer[] byteBuffers = networkQueue.byteBuffers();
+
+            int bytesWritten = 0;
+
+            try
+            {
+                for (int i = WRITE_SPIN_COUNT; bytesWritten == 0 && i > 0; i--)
+                {
+                    bytesWritten = slotCount == 1
+                        ? network.write(byteBuffers[0])
+                        : (int) network.write(byteBuffers, 0, slotCount);
+                }
+
+                counters.bytesWritten.accept(bytesWritten);
+                connectionBytesWritten += bytesWritten;
+
+                bytesFlushed += bytesWritten;
+                counters.writeSizes.record(bytesWritten);
+
+                if (bytesWritten > 0)
+                {
+                    // only progress is activity, so a peer that stops reading still times out
+                    idleTimer.touch();
+                    writeTimer.touch();
+                }
+
+                if (bytesWritten < length)
+                {
+                    networkQueue.consume(bytesWritten);
+                    onNetworkWritePartial(length - bytesWritten);
+                }
+                else
+                {
+                    onNetworkWriteComplete(traceId);
                 }
             }
             catch (IOException ex)
@@ -387,6 +539,85 @@ public class TcpServerFactory implements StreamFactory
             return bytesWritten;
         }
 
+        private void onNetworkWritePartial(
+            int remaining)
+        {
+            counters.partials.getAsLong();
+            counters.partialWrites.getAsLong();
+            counters.queuedSizes.record(remaining);
+
+            onNetworkQueued();
+            writeTimer.start();
+            networkKey.register(OP_WRITE);
+            networkKey.drained(OP_WRITE);
+            counters.writeops.getAsLong();
+        }
+
+        private void onNetworkWriteComplete(
+            long traceId)
+        {
+            cleanupNetworkSlotIfNecessary();
+            networkKey.clear(OP_WRITE);
+            writeTimer.cancel();
+
+            if (queuedAt != NO_TIMESTAMP)
+            {
+                counters.flushTimes.record(TcpServerFactory.this.counters.timestamp() - queuedAt);
+                queuedAt = NO_TIMESTAMP;
+            }
+
+            if (TcpState.replyClosing(state))
+            {
+                doNetworkShutdownOutput(traceId);
+            }
+            else if (bytesFlushed >= windowThreshold)
+            {
+                doApplicationWindow(traceId, bytesFlushed);
+                bytesFlushed = 0;
+            }
+        }
+
+        private void onNetworkQueued()
+        {
+            if (queuedAt == NO_TIMESTAMP)
+            {
+                queuedAt = TcpServerFactory.this.counters.timestamp();
+            }
+        }
+
+        private void onNetworkTimeout()
+        {
+            doCleanup(supplyTraceId.getAsLong(), true);
+        }
+
+        private void onNetworkOverflow(
+            long traceId)
+        {
+            counters.overflows.getAsLong();
+            doApplicationResetIfNecessary(traceId);
+            doCleanup(traceId);
+        }
+
+        // copies small frames to coalesce them until the next poller cycle, see onNetworkFlush
+        private boolean doNetworkEnqueue(
+            DirectBuffer buffer,
+            int offset,
+            int length)
+        {
+            final boolean enqueued =
+                !networkKey.isRegistered(OP_WRITE) &&
+                networkQueue.length() + length <= writeCoalesceLimit &&
+                networkQueue.append(replyId, buffer, offset, length);
+
+            if (enqueued)
+            {
+                onNetworkQueued();
+                networkKey.scheduleFlush();
+            }
+
+            return enqueued;
+        }
+
         private void doNetworkShutdownOutput(
             long traceId)
         {
@@ -400,7 +631,7 @@ public class TcpServerFactory implements StreamFactory
 
                 if (network.socket().isInputShutdown())
                 {
-                    doCloseNetwork(network);
+                    doCloseNetwork();
                 }
             }
             catch (IOException ex)
@@ -415,32 +646,54 @@ public class TcpServerFactory implements StreamFactory
             int index,
             int length)
         {
-            switch (msgTypeId)
-            {
-            case BeginFW.TYPE_ID:
-                final BeginFW begin = beginRO.wrap(buffer, index, index + length);
-                onApplicationBegin(begin);
-                break;
-            case DataFW.TYPE_ID:
-                final DataFW data = dataRO.wrap(buffer, index, index + length);
-                onApplicationData(data);
-                break;
-            case EndFW.TYPE_ID:
-                final EndFW end = endRO.wrap(buffer, index, index + length);
-                onApplicationEnd(end);
-                break;
-            case AbortFW.TYPE_ID:
-                final AbortFW abort = abortRO.wrap(buffer, index, index + length);
-                onApplicationAbort(abort);
-                break;
-            case ResetFW.TYPE_ID:
-                final ResetFW reset = resetRO.wrap(buffer, index, index + length);
-                onApplicationReset(reset);
-                break;
-            case WindowFW.TYPE_ID:
-                final WindowFW window = windowRO.wrap(buffer, index, index + length);
-                onApplicationWindow(window);
-                break;
+            // ignore frames once closed, or for streams of a previous connection, see doCloseNetwork
+            if (!closed)
+            {
+                switch (msgTypeId)
+                {
+                case BeginFW.TYPE_ID:
+                    final BeginFW begin = beginRO.wrap(buffer, index, index + length);
+                    if (begin.streamId() == replyId)
+                    {
+                        onApplicationBegin(begin);
+                    }
+                    break;
+                case DataFW.TYPE_ID:
+                    final DataFW data = dataRO.wrap(buffer, index, index + length);
+                    if (data.streamId() == replyId)
+                    {
+                        onApplicationData(data);
+                    }
+                    break;
+                case EndFW.TYPE_ID:
+                    final EndFW end = endRO.wrap(buffer, index, index + length);
+                    if (end.streamId() == replyId)
+                    {
+                        onApplicationEnd(end);
+                    }
+                    break;
+                case AbortFW.TYPE_ID:
+                    final AbortFW abort = abortRO.wrap(buffer, index, index + length);
+                    if (abort.streamId() == replyId)
+                    {
+                        onApplicationAbort(abort);
+                    }
+                    break;
+                case ResetFW.TYPE_ID:
+                    final ResetFW reset = resetRO.wrap(buffer, index, index + length);
+                    if (reset.streamId() == initialId)
+                    {
+                        onApplicationReset(reset);
+                    }
+                    break;
+                case WindowFW.TYPE_ID:
+                    final WindowFW window = windowRO.wrap(buffer, index, index + length);
+                    if (window.streamId() == initialId)
+                    {
+                        onApplicationWindow(window);
+                    }
+                    break;
+                }
             }
         }
 
@@ -448,10 +701,11 @@ public class TcpServerFactory implements StreamFactory
             BeginFW begin)
         {
             final long traceId = begin.traceId();
-            final int credit = bufferPool.slotCapacity();
+            final int credit = windowSize;
 
             state = TcpState.openReply(state);
             counters.opensRead.getAsLong();
+            counters.acceptTimes.record(TcpServerFactory.this.counters.timestamp() - acceptedAt);
 
             doApplicationWindow(traceId, credit);
         }
@@ -473,38 +727,26 @@ public class TcpServerFactory implements StreamFactory
             {
                 final OctetsFW payload = data.payload();
 
-                DirectBuffer buffer = payload.buffer();
-                int offset = payload.offset();
-                int length = payload.sizeof();
+                final DirectBuffer buffer = payload.buffer();
+                final int offset = payload.offset();
+                final int length = payload.sizeof();
 
                 assert reserved == length;
                 assert length > 0;
 
-                ByteBuffer byteBuffer;
+                final boolean coalescing = !networkQueue.isEmpty() || networkKey.isFlushScheduled();
 
-                if (networkSlot != NO_SLOT)
+                if (!coalescing || !doNetworkEnqueue(buffer, offset, length))
                 {
-                    final MutableDirectBuffer slotBuffer = bufferPool.buffer(networkSlot);
-                    slotBuffer.putBytes(networkSlotOffset, buffer, offset, length);
-                    networkSlotOffset += length;
-
-                    final ByteBuffer slotByteBuffer = bufferPool.byteBuffer(networkSlot);
-                    slotByteBuffer.limit(slotByteBuffer.position() + networkSlotOffset);
+                    final ByteBuffer byteBuffer = payloadByteBuffer(buffer, offset, length);
+                    final int bytesWritten = doNetworkWrite(buffer, offset, length, byteBuffer, traceId);
 
-                    buffer = slotBuffer;
-                    offset = 0;
-                    length = networkSlotOffset;
-                    byteBuffer = slotByteBuffer;
-                }
-                else
-                {
-                    writeByteBuffer.clear();
-                    buffer.getBytes(offset, writeByteBuffer, length);
-                    writeByteBuffer.flip();
-                    byteBuffer = writeByteBuffer;
+                    if (!coalescing && bytesWritten == length)
+                    {
+                        // coalesce any further small frames until the start of the next poller cycle
+                        networkKey.scheduleFlush();
+                    }
                 }
-
-                doNetworkWrite(buffer, offset, length, byteBuffer, traceId);
             }
         }
 
@@ -515,7 +757,7 @@ public class TcpServerFactory implements StreamFactory
 
             state = TcpState.closingReply(state);
 
-            if (networkSlot == NO_SLOT)
+            if (networkQueue.isEmpty())
             {
                 doNetworkShutdownOutput(traceId);
             }
@@ -576,21 +818,19 @@ public class TcpServerFactory implements StreamFactory
             final InetSocketAddress localAddress = (InetSocketAddress) network.getLocalAddress();
             final InetSocketAddress remoteAddress = (InetSocketAddress) network.getRemoteAddress();
 
-            router.setThrottle(initialId, this::onApplication);
+            router.setThrottle(initialId, applicationHandler);
             doBegin(application, routeId, initialId, traceId, localAddress, remoteAddress);
             counters.opensWritten.getAsLong();
             state = TcpState.openingInitial(state);
         }
 
         private void doApplicationData(
-            DirectBuffer buffer,
-            int offset,
             int length)
         {
             final long traceId = supplyTraceId.getAsLong();
             final int reserved = length + initialPadding;
 
-            doData(application, routeId, initialId, traceId, initialBudgetId, reserved, buffer, offset, length);
+            doData(application, routeId, initialId, traceId, initialBudgetId, reserved, length);
 
             initialBudget -= reserved;
 
@@ -686,20 +926,73 @@ public class TcpServerFactory implements StreamFactory
 
             cleanupNetworkSlotIfNecessary();
 
-            doCloseNetwork(network);
+            doCloseNetwork();
         }
 
         private void cleanupNetworkSlotIfNecessary()
         {
-            if (networkSlot != NO_SLOT)
+            if (!networkQueue.isEmpty())
+            {
+                networkQueue.release();
+            }
+        }
+
+        // recycles exactly once per connection, even if the channel was already closed
+        private void doCloseNetwork()
+        {
+            if (!closed)
             {
-                bufferPool.release(networkSlot);
-                networkSlot = NO_SLOT;
-                networkSlotOffset = 0;
+                closed = true;
+
+                counters.connectionReadSizes.record(connectionBytesRead);
+                counters.connectionWriteSizes.record(connectionBytesWritten);
+
+                idleTimer.cancel();
+                writeTimer.cancel();
+                cleanupNetworkSlotIfNecessary();
+                correlations.remove(replyId);
+                TcpServerFactory.this.doCloseNetwork(network);
+                servers.push(this);
             }
         }
     }
 
+    private ByteBuffer payloadByteBuffer(
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        final ByteBuffer byteBuffer = buffer.byteBuffer();
+
+        ByteBuffer payloadByteBuffer;
+
+        if (byteBuffer != null)
+        {
+            // wrap each stream buffer once, then re-slice per frame
+            if (byteBuffer != streamByteBuffer)
+            {
+                streamByteBuffer = byteBuffer;
+                streamByteBufferRO = byteBuffer.duplicate();
+            }
+
+            final int position = buffer.wrapAdjustment() + offset;
+
+            payloadByteBuffer = streamByteBufferRO;
+            ((Buffer) payloadByteBuffer).clear();
+            ((Buffer) payloadByteBuffer).limit(position + length);
+            ((Buffer) payloadByteBuffer).position(position);
+        }
+        else
+        {
+            writeByteBuffer.clear();
+            buffer.getBytes(offset, writeByteBuffer, length);
+            writeByteBuffer.flip();
+            payloadByteBuffer = writeByteBuffer;
+        }
+
+        return payloadByteBuffer;
+    }
+
     private void doBegin(
         MessageConsumer receiver,
         long routeId,
@@ -726,17 +1019,18 @@ public class TcpServerFactory implements StreamFactory
         long traceId,
         long budgetId,
         int reserved,
-        DirectBuffer payload,
-        int offset,
         int length)
     {
-        DataFW data = dataRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+        // payload already read into readBuffer at DataFW.FIELD_OFFSET_PAYLOAD
+        readPayloadLength = length;
+
+        DataFW data = dataRW.wrap(readBuffer, 0, readBuffer.capacity())
                 .routeId(routeId)
                 .streamId(streamId)
                 .traceId(traceId)
                 .budgetId(budgetId)
                 .reserved(reserved)
-                .payload(payload, offset, length)
+                .payload(readPayload)
                 .build();
 
         stream.accept(data.typeId(), data.buffer(), data.offset(), data.sizeof());
@@ -49,6 +49,7 @@ public class TcpServerFactoryBuilder implements StreamFactoryBuilder
     private MutableDirectBuffer writeBuffer;
     private Function<String, LongSupplier> supplyCounter;
     private Function<String, LongConsumer> supplyAccumulator;
+    private TcpCounters counters;
 
     public TcpServerFactoryBuilder(
         TcpConfiguration config,
@@ -62,6 +63,16 @@ public class TcpServerFactoryBuilder implements StreamFactoryBuilder
         this.poller = poller;
     }
 
+    // registers route counters when routed, ahead of the first stream on the route
+    public void supplyRouteCounters(
+        long routeId)
+    {
+        if (counters != null)
+        {
+            counters.supplyRoute(routeId);
+        }
+    }
+
     @Override
     public StreamFactoryBuilder setBufferPoolSupplier(
         Supplier<BufferPool> supplyBufferPool)
@@ -138,7 +149,8 @@ public class TcpServerFactoryBuilder implements StreamFactoryBuilder
     public StreamFactory build()
     {
         final BufferPool bufferPool = supplyBufferPool.get();
-        final TcpCounters counters = new TcpCounters(supplyCounter, supplyAccumulator, countersByRouteId);
+        final TcpCounters counters = new TcpCounters(supplyCounter, supplyAccumulator, countersByRouteId, config.histograms());
+        this.counters = counters;
 
         TcpServerFactory factory = new TcpServerFactory(
             config,
@@ -153,7 +165,6 @@ public class TcpServerFactoryBuilder implements StreamFactoryBuilder
             counters,
             acceptor::onChannelClosed);
         acceptor.setServerFactory(factory);
-        acceptor.setRouter(router);
         return factory;
 
     }
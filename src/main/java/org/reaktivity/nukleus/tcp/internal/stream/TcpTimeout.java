@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static org.reaktivity.nukleus.tcp.internal.poller.Poller.NO_TIMER;
+
+import org.reaktivity.nukleus.tcp.internal.poller.Poller;
+
+/**
+ * A connection timeout on the poller timer wheel, expiring after a period without activity.
+ * <p>
+ * Activity only records a timestamp, and the timer is rescheduled for the remaining period when it expires early,
+ * so busy connections do not reschedule on every read or write.
+ */
+final class TcpTimeout
+{
+    private final Poller poller;
+    private final long timeout;
+    private final Runnable timeoutHandler;
+    private final Runnable expiryHandler;
+
+    private long timerId;
+    private long activeAt;
+
+    TcpTimeout(
+        Poller poller,
+        long timeout,
+        Runnable timeoutHandler)
+    {
+        this.poller = poller;
+        this.timeout = timeout;
+        this.timeoutHandler = timeoutHandler;
+        this.expiryHandler = this::onExpiry;
+        this.timerId = NO_TIMER;
+    }
+
+    // no-op if disabled or already started
+    void start()
+    {
+        if (timeout > 0L && timerId == NO_TIMER)
+        {
+            activeAt = System.nanoTime();
+            timerId = poller.scheduleTimer(timeout, expiryHandler);
+        }
+    }
+
+    void touch()
+    {
+        if (timerId != NO_TIMER)
+        {
+            activeAt = System.nanoTime();
+        }
+    }
+
+    void cancel()
+    {
+        if (timerId != NO_TIMER)
+        {
+            poller.cancelTimer(timerId);
+            timerId = NO_TIMER;
+        }
+    }
+
+    private void onExpiry()
+    {
+        timerId = NO_TIMER;
+
+        final long inactive = System.nanoTime() - activeAt;
+
+        if (inactive >= timeout)
+        {
+            timeoutHandler.run();
+        }
+        else
+        {
+            timerId = poller.scheduleTimer(timeout - inactive, expiryHandler);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+/**
+ * Queues bytes pending network write in a chain of up to {@code maxSlots} buffer slots.
+ * <p>
+ * Queued bytes start at a head offset into the first slot, so a partial write only advances the
+ * offset, and a slot is released once all of its bytes are written. Bytes are moved back to the
+ * start of the first slot only when an append would otherwise need more than {@code maxSlots},
+ * so the advertised window of {@code maxSlots * slotCapacity} still bounds the number of slots needed.
+ */
+final class TcpWriteQueue
+{
+    private final BufferPool bufferPool;
+    private final MutableDirectBuffer slotBufferRW;
+    private final ByteBuffer[] slotByteBuffers;
+    private final int slotCapacity;
+    private final int[] slots;
+
+    private int slotCount;
+    private int head;
+    private int length;
+
+    TcpWriteQueue(
+        BufferPool bufferPool,
+        MutableDirectBuffer slotBufferRW,
+        ByteBuffer[] slotByteBuffers)
+    {
+        this.bufferPool = bufferPool;
+        this.slotBufferRW = slotBufferRW;
+        this.slotByteBuffers = slotByteBuffers;
+        this.slotCapacity = bufferPool.slotCapacity();
+        this.slots = new int[slotByteBuffers.length];
+    }
+
+    boolean isEmpty()
+    {
+        return slotCount == 0;
+    }
+
+    int length()
+    {
+        return length;
+    }
+
+    int slotCount()
+    {
+        return slotCount;
+    }
+
+    // @return false if the bytes do not fit in the remaining slots, or no slots are available
+    boolean append(
+        long streamId,
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        final int newLength = this.length + length;
+
+        if (head != 0 && slotsNeeded(head, newLength) > slots.length && slotsNeeded(0, newLength) <= slots.length)
+        {
+            compact();
+        }
+
+        final int newSlotCount = slotsNeeded(head, newLength);
+
+        boolean appended = newSlotCount <= slots.length;
+
+        for (int i = slotCount; appended && i < newSlotCount; i++)
+        {
+            final int slot = bufferPool.acquire(streamId);
+            if (slot == NO_SLOT)
+            {
+                for (int j = slotCount; j < i; j++)
+                {
+                    bufferPool.release(slots[j]);
+                }
+                appended = false;
+            }
+            slots[i] = slot;
+        }
+
+        if (appended)
+        {
+            slotCount = newSlotCount;
+
+            int progress = 0;
+            while (progress < length)
+            {
+                final int position = head + this.length + progress;
+                final int slotOffset = position % slotCapacity;
+                final int bytes = Math.min(slotCapacity - slotOffset, length - progress);
+                final MutableDirectBuffer slotBuffer = bufferPool.buffer(slots[position / slotCapacity]);
+                slotBuffer.putBytes(slotOffset, buffer, offset + progress, bytes);
+                progress += bytes;
+            }
+
+            this.length = newLength;
+        }
+
+        return appended;
+    }
+
+    // positions a view of each slot over its queued bytes, see GatheringByteChannel
+    ByteBuffer[] byteBuffers()
+    {
+        for (int i = 0; i < slotCount; i++)
+        {
+            final ByteBuffer slotByteBuffer = bufferPool.byteBuffer(slots[i]);
+            final int position = slotByteBuffer.position();
+            final int start = i == 0 ? head : 0;
+            final int end = Math.min(slotCapacity, head + length - i * slotCapacity);
+
+            ByteBuffer byteBuffer = slotByteBuffers[i];
+            if (byteBuffer == null)
+            {
+                byteBuffer = slotByteBuffer.duplicate();
+                slotByteBuffers[i] = byteBuffer;
+            }
+
+            ((Buffer) byteBuffer).clear();
+            ((Buffer) byteBuffer).limit(position + end);
+            ((Buffer) byteBuffer).position(position + start);
+        }
+
+        return slotByteBuffers;
+    }
+
+    void consume(
+        int bytes)
+    {
+        assert bytes <= length;
+
+        if (bytes == length)
+        {
+            release();
+        }
+        else
+        {
+            final int offset = head + bytes;
+            final int consumedSlots = offset / slotCapacity;
+
+            for (int i = 0; i < consumedSlots; i++)
+            {
+                bufferPool.release(slots[i]);
+            }
+            System.arraycopy(slots, consumedSlots, slots, 0, slotCount - consumedSlots);
+            slotCount -= consumedSlots;
+            head = offset % slotCapacity;
+            length -= bytes;
+        }
+    }
+
+    void release()
+    {
+        for (int i = 0; i < slotCount; i++)
+        {
+            bufferPool.release(slots[i]);
+        }
+        slotCount = 0;
+        head = 0;
+        length = 0;
+    }
+
+    // moves queued bytes to the start of the first slot, releasing a trailing slot if no longer needed
+    private void compact()
+    {
+        final int shift = head;
+
+        int progress = 0;
+        for (int i = 0; progress < length; i++)
+        {
+            final MutableDirectBuffer slotBuffer = slotBufferRW;
+            slotBuffer.wrap(bufferPool.buffer(slots[i]));
+
+            final int headBytes = Math.min(slotCapacity - shift, length - progress);
+            slotBuffer.putBytes(0, slotBuffer, shift, headBytes);
+            progress += headBytes;
+
+            if (progress < length)
+            {
+                final int tailBytes = Math.min(shift, length - progress);
+                slotBuffer.putBytes(slotCapacity - shift, bufferPool.buffer(slots[i + 1]), 0, tailBytes);
+                progress += tailBytes;
+            }
+        }
+
+        head = 0;
+
+        final int newSlotCount = slotsNeeded(0, length);
+        for (int i = newSlotCount; i < slotCount; i++)
+        {
+            bufferPool.release(slots[i]);
+        }
+        slotCount = newSlotCount;
+    }
+
+    private int slotsNeeded(
+        int head,
+        int length)
+    {
+        return (head + length + slotCapacity - 1) / slotCapacity;
+    }
+}
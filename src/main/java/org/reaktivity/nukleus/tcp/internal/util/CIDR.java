@@ -33,72 +33,133 @@ package org.reaktivity.nukleus.tcp.internal.util;
 
 import static java.lang.Integer.parseInt;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.agrona.DirectBuffer;
+
+/**
+ * Matches IPv4 or IPv6 addresses against a network prefix, comparing raw address bytes without allocation.
+ */
 public class CIDR
 {
-    private static final long LARGEST_IPV4 = 0xFFFFFFFFL;
     private static final String IP_ADDRESS = "(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})";
-    private static final String SLASH_FORMAT = IP_ADDRESS + "/(\\d{1,3})";
     private static final Pattern ADDRESS_PATTERN = Pattern.compile(IP_ADDRESS);
-    private static final Pattern CIDR_PATTERN = Pattern.compile(SLASH_FORMAT);
-
-    private final long low;
-    private final long high;
 
+    private final byte[] network;
+    private final int prefixBytes;
+    private final int prefixMask;
 
     public CIDR(String cidrNotation)
     {
-        final Matcher matcher = CIDR_PATTERN.matcher(cidrNotation);
+        final int slashAt = cidrNotation.lastIndexOf('/');
+        final byte[] address = slashAt != -1 ? parseAddress(cidrNotation.substring(0, slashAt)) : null;
+        final int prefixLength = address != null ? parsePrefixLength(cidrNotation.substring(slashAt + 1)) : -1;
 
-        if (matcher.matches())
+        if (prefixLength < 0 || prefixLength > address.length * Byte.SIZE)
         {
-            final long address = matchAddress(matcher);
-
-            final int cidrPart = Integer.parseInt(matcher.group(5));
-            final int netmask = cidrPart == 0 ? 0 : -1 << (32 - cidrPart);
+            throw new IllegalArgumentException("Could not parse [" + cidrNotation + "]");
+        }
 
-            final long network = address & netmask;
-            final long broadcast = network | ~netmask;
+        this.prefixBytes = prefixLength / Byte.SIZE;
+        this.prefixMask = (0xff00 >> (prefixLength % Byte.SIZE)) & 0xff;
 
-            low = network;
-            high = broadcast == -1 ? LARGEST_IPV4 : broadcast;
-        }
-        else
+        if (prefixBytes < address.length)
         {
-            throw new IllegalArgumentException("Could not parse [" + cidrNotation + "]");
+            address[prefixBytes] &= prefixMask;
+            for (int i = prefixBytes + 1; i < address.length; i++)
+            {
+                address[i] = 0;
+            }
         }
+
+        this.network = address;
     }
 
     public boolean isInRange(String address)
     {
-        final long addr = toLong(address);
-        return high >= addr && addr >= low;
+        final byte[] addr = parseAddress(address);
+
+        if (addr == null)
+        {
+            throw new IllegalArgumentException("Could not parse [" + address + "]");
+        }
+
+        return isInRange(addr);
     }
 
-    private long toLong(String address)
+    public boolean isInRange(InetAddress address)
     {
-        final Matcher matcher = ADDRESS_PATTERN.matcher(address);
-        if (matcher.matches())
+        return isInRange(address.getAddress());
+    }
+
+    public boolean isInRange(byte[] address)
+    {
+        boolean inRange = address.length == network.length;
+
+        for (int i = 0; inRange && i < prefixBytes; i++)
         {
-            return matchAddress(matcher);
+            inRange = address[i] == network[i];
         }
-        else
+
+        return inRange && (prefixBytes == network.length || (address[prefixBytes] & prefixMask) == (network[prefixBytes] & 0xff));
+    }
+
+    public boolean isInRange(DirectBuffer buffer, int offset, int length)
+    {
+        boolean inRange = length == network.length;
+
+        for (int i = 0; inRange && i < prefixBytes; i++)
         {
-            throw new IllegalArgumentException("Could not parse [" + address + "]");
+            inRange = buffer.getByte(offset + i) == network[i];
         }
+
+        return inRange &&
+                (prefixBytes == network.length ||
+                 (buffer.getByte(offset + prefixBytes) & prefixMask) == (network[prefixBytes] & 0xff));
     }
 
-    private long matchAddress(Matcher matcher)
+    private static int parsePrefixLength(String prefixLength)
     {
-        long addr = 0;
-        for (int i = 1; i <= 4; ++i)
+        int length = -1;
+
+        if (!prefixLength.isEmpty() && prefixLength.length() <= 3 && prefixLength.chars().allMatch(Character::isDigit))
         {
-            int n = parseInt(matcher.group(i));
-            addr = addr << 8;
-            addr |= n & 0xff;
+            length = parseInt(prefixLength);
         }
+
+        return length;
+    }
+
+    // @return the address bytes, or null if not an IPv4 or IPv6 literal
+    private static byte[] parseAddress(String address)
+    {
+        byte[] addr = null;
+
+        final Matcher matcher = ADDRESS_PATTERN.matcher(address);
+        if (matcher.matches())
+        {
+            addr = new byte[4];
+            for (int i = 0; i < addr.length; i++)
+            {
+                addr[i] = (byte) parseInt(matcher.group(i + 1));
+            }
+        }
+        else if (address.indexOf(':') != -1 && (address.charAt(0) == ':' || Character.digit(address.charAt(0), 16) != -1))
+        {
+            try
+            {
+                // IPv6 literals are parsed without a lookup, see InetAddress#getByName
+                addr = InetAddress.getByName(address).getAddress();
+            }
+            catch (UnknownHostException ex)
+            {
+                // not an address
+            }
+        }
+
         return addr;
     }
 }
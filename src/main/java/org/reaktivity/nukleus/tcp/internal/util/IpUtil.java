@@ -31,7 +31,7 @@ import org.reaktivity.nukleus.tcp.internal.types.OctetsFW;
 public final class IpUtil
 {
     public static final Pattern ACCEPT_HOST_AND_PORT_PATTERN = Pattern.compile("tcp#([^:]+):(\\d+)");
-    public static final Pattern CONNECT_HOST_AND_PORT_PATTERN = Pattern.compile("([^:]+):(\\d+)");
+    public static final Pattern CONNECT_HOST_AND_PORT_PATTERN = Pattern.compile("(.+):(\\d+)");
 
     private static final int FIELD_SIZE_IPV4_ADDRESS = 4;
     private static final int FIELD_SIZE_IPV6_ADDRESS = 16;
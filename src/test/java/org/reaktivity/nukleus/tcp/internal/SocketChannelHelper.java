@@ -51,6 +51,11 @@ public final class SocketChannelHelper
             return write(channel, buffer, onData);
         }
 
+        public long doWrite(SocketChannel channel, ByteBuffer[] buffers, int offset, int length) throws IOException
+        {
+            return write(channel, buffers, offset, length, onData);
+        }
+
         private static void reset()
         {
             onData = IntStream.empty().iterator();
@@ -77,6 +82,11 @@ public final class SocketChannelHelper
             return write(channel, buffer, handleWrite);
         }
 
+        public long doWrite(SocketChannel channel, ByteBuffer[] buffers, int offset, int length) throws IOException
+        {
+            return write(channel, buffers, offset, length, handleWrite);
+        }
+
         private static void reset()
         {
             handleWrite = IntStream.empty().iterator();
@@ -146,4 +156,32 @@ public final class SocketChannelHelper
         return written;
     }
 
+    private static long write(
+        SocketChannel channel,
+        ByteBuffer[] bs,
+        int offset,
+        int length,
+        PrimitiveIterator.OfInt iterator) throws IOException
+    {
+        int bytesToWrite = iterator.hasNext() ? iterator.nextInt() : ALL;
+        int[] limits = new int[length];
+        for (int i = 0; i < length; i++)
+        {
+            ByteBuffer b = bs[offset + i];
+            limits[i] = b.limit();
+            if (bytesToWrite != ALL)
+            {
+                int bytes = Math.min(b.remaining(), bytesToWrite);
+                b.limit(b.position() + bytes);
+                bytesToWrite -= bytes;
+            }
+        }
+        long written = channel.write(bs, offset, length);
+        for (int i = 0; i < length; i++)
+        {
+            bs[offset + i].limit(limits[i]);
+        }
+        return written;
+    }
+
 }
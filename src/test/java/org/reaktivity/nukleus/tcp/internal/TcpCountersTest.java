@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.tcp.internal.TcpHistogram.BUCKETS;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+import org.agrona.collections.Long2ObjectHashMap;
+import org.junit.Test;
+
+public final class TcpCountersTest
+{
+    private final Set<String> names = new HashSet<>();
+
+    @Test
+    public void shouldRegisterHistogramBucketsWhenRouteSupplied() throws Exception
+    {
+        final TcpCounters counters = new TcpCounters(this::supplyCounter, this::supplyAccumulator,
+                new Long2ObjectHashMap<>(), true);
+
+        counters.supplyRoute(1L);
+
+        assertTrue(names.contains("tcp.1.accept.nanos.0"));
+        assertTrue(names.contains("tcp.1.accept.nanos." + (BUCKETS - 1)));
+        assertTrue(names.contains("tcp.1.connection.write.bytes." + (BUCKETS - 1)));
+        assertTrue(names.contains("tcp.1.connection.write.bytes.sum"));
+    }
+
+    @Test
+    public void shouldNotRegisterCountersOnSubsequentStreams() throws Exception
+    {
+        final TcpCounters counters = new TcpCounters(this::supplyCounter, this::supplyAccumulator,
+                new Long2ObjectHashMap<>(), true);
+
+        final TcpRouteCounters routeCounters = counters.supplyRoute(1L);
+        names.clear();
+
+        routeCounters.acceptTimes.record(1000L);
+        routeCounters.readSizes.record(1L << 40);
+
+        assertSame(routeCounters, counters.supplyRoute(1L));
+        assertTrue(names.isEmpty());
+    }
+
+    @Test
+    public void shouldNotRegisterHistogramBucketsWhenDisabled() throws Exception
+    {
+        final TcpCounters counters = new TcpCounters(this::supplyCounter, this::supplyAccumulator,
+                new Long2ObjectHashMap<>(), false);
+
+        counters.supplyRoute(1L);
+
+        assertEquals(0L, names.stream().filter(n -> n.endsWith(".0") || n.endsWith(".sum")).count());
+    }
+
+    private LongSupplier supplyCounter(
+        String name)
+    {
+        names.add(name);
+        return () -> 0L;
+    }
+
+    private LongConsumer supplyAccumulator(
+        String name)
+    {
+        names.add(name);
+        return v -> {};
+    }
+}
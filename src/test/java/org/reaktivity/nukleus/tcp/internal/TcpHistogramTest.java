@@ -0,0 +1,100 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.tcp.internal.TcpHistogram.BUCKETS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+public final class TcpHistogramTest
+{
+    private final Map<String, long[]> counters = new HashMap<>();
+    private final List<String> accumulators = new ArrayList<>();
+    private final StringBuilder name = new StringBuilder("tcp.1.");
+
+    private final TcpHistogram histogram =
+        new TcpHistogram(name, "tcp.1.".length(), "write.bytes", this::supplyCounter, this::supplyAccumulator);
+
+    @Test
+    public void shouldSupplyBucketsUpFront() throws Exception
+    {
+        assertEquals(BUCKETS, counters.size());
+        assertEquals(0L, value("tcp.1.write.bytes.0"));
+        assertEquals(0L, value("tcp.1.write.bytes." + (BUCKETS - 1)));
+    }
+
+    @Test
+    public void shouldNameSumAfterBuckets() throws Exception
+    {
+        assertEquals(Collections.singletonList("tcp.1.write.bytes.sum"), accumulators);
+        assertTrue(name.toString().startsWith("tcp.1."));
+    }
+
+    @Test
+    public void shouldRecordIntoPowerOfTwoBuckets() throws Exception
+    {
+        histogram.record(0L);
+        histogram.record(1L);
+        histogram.record(1023L);
+        histogram.record(1024L);
+
+        assertEquals(1L, value("tcp.1.write.bytes.0"));
+        assertEquals(1L, value("tcp.1.write.bytes.1"));
+        assertEquals(1L, value("tcp.1.write.bytes.10"));
+        assertEquals(1L, value("tcp.1.write.bytes.11"));
+        assertEquals(BUCKETS, counters.size());
+    }
+
+    @Test
+    public void shouldRecordLargeValuesIntoLastBucket() throws Exception
+    {
+        histogram.record(1L << 40);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2L, value("tcp.1.write.bytes." + (BUCKETS - 1)));
+        assertEquals(BUCKETS, counters.size());
+    }
+
+    private LongSupplier supplyCounter(
+        String name)
+    {
+        final long[] counter = counters.computeIfAbsent(name, n -> new long[1]);
+        return () -> ++counter[0];
+    }
+
+    private LongConsumer supplyAccumulator(
+        String name)
+    {
+        accumulators.add(name);
+        return v -> {};
+    }
+
+    private long value(
+        String name)
+    {
+        return counters.get(name)[0];
+    }
+}
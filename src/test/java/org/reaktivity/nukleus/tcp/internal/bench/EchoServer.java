@@ -0,0 +1,212 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.bench;
+
+import static java.net.StandardSocketOptions.SO_RCVBUF;
+import static java.net.StandardSocketOptions.SO_REUSEADDR;
+import static java.nio.ByteBuffer.allocate;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single threaded loopback echo server for benchmarks that need a peer behind a client route.
+ * <p>
+ * Reads share one buffer, so only connections with unwritten echo data hold a buffer of their own.
+ * A non-zero pause makes this a slow receiver with a small receive buffer.
+ */
+final class EchoServer implements Runnable, AutoCloseable
+{
+    static final String THREAD_NAME = "echo-server";
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ByteBuffer readBuffer;
+    private final long pauseNanos;
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    EchoServer(
+        InetSocketAddress address,
+        long pauseNanos) throws IOException
+    {
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.setOption(SO_REUSEADDR, true);
+        this.serverChannel.bind(address, 1024);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, OP_ACCEPT);
+        this.readBuffer = allocateDirect(pauseNanos != 0L ? 1024 : 65536);
+        this.pauseNanos = pauseNanos;
+        this.thread = new Thread(this, THREAD_NAME);
+    }
+
+    void start()
+    {
+        thread.start();
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            while (!closed)
+            {
+                selector.select(100L);
+
+                for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext();)
+                {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid())
+                    {
+                        continue;
+                    }
+
+                    if (key.isAcceptable())
+                    {
+                        onAcceptable();
+                    }
+                    else if (key.isWritable())
+                    {
+                        onWritable(key);
+                    }
+                    else
+                    {
+                        onReadable(key);
+                    }
+                }
+
+                if (pauseNanos != 0L)
+                {
+                    LockSupport.parkNanos(pauseNanos);
+                }
+            }
+        }
+        catch (IOException ex)
+        {
+            ex.printStackTrace(System.err);
+        }
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        closed = true;
+        thread.join();
+        selector.keys().forEach(k -> closeQuietly(k.channel()));
+        selector.close();
+    }
+
+    private void onAcceptable() throws IOException
+    {
+        for (SocketChannel channel = serverChannel.accept(); channel != null; channel = serverChannel.accept())
+        {
+            channel.configureBlocking(false);
+            if (pauseNanos != 0L)
+            {
+                channel.setOption(SO_RCVBUF, 4096);
+            }
+
+            channel.register(selector, OP_READ);
+        }
+    }
+
+    private void onReadable(
+        SelectionKey key)
+    {
+        final SocketChannel channel = (SocketChannel) key.channel();
+
+        try
+        {
+            readBuffer.clear();
+            final int bytesRead = channel.read(readBuffer);
+            if (bytesRead == -1)
+            {
+                key.cancel();
+                channel.close();
+            }
+            else
+            {
+                readBuffer.flip();
+                channel.write(readBuffer);
+
+                if (readBuffer.hasRemaining())
+                {
+                    final ByteBuffer pending = allocate(readBuffer.remaining());
+                    pending.put(readBuffer).flip();
+                    key.attach(pending);
+                    key.interestOps(OP_WRITE);
+                }
+            }
+        }
+        catch (IOException ex)
+        {
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+
+    private void onWritable(
+        SelectionKey key)
+    {
+        final SocketChannel channel = (SocketChannel) key.channel();
+        final ByteBuffer pending = (ByteBuffer) key.attachment();
+
+        try
+        {
+            channel.write(pending);
+
+            if (!pending.hasRemaining())
+            {
+                key.attach(null);
+                key.interestOps(OP_READ);
+            }
+        }
+        catch (IOException ex)
+        {
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+
+    private static void closeQuietly(
+        AutoCloseable closeable)
+    {
+        try
+        {
+            closeable.close();
+        }
+        catch (final Exception ignore)
+        {
+            // NOOP
+        }
+    }
+}
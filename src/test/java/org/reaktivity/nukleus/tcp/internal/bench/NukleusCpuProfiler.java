@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.bench;
+
+import static java.util.Collections.singletonList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the CPU time spent by nukleus threads during each iteration, as a percentage of one core.
+ * <p>
+ * Benchmark and echo server threads are excluded, so only reaktor threads remain.
+ */
+public final class NukleusCpuProfiler implements InternalProfiler
+{
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private long iterationCpuTime;
+    private long iterationStartedAt;
+
+    @Override
+    public String getDescription()
+    {
+        return "nukleus thread CPU time";
+    }
+
+    @Override
+    public void beforeIteration(
+        BenchmarkParams benchmarkParams,
+        IterationParams iterationParams)
+    {
+        iterationCpuTime = nukleusCpuTime();
+        iterationStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(
+        BenchmarkParams benchmarkParams,
+        IterationParams iterationParams,
+        IterationResult result)
+    {
+        final long cpuTime = nukleusCpuTime() - iterationCpuTime;
+        final long elapsed = System.nanoTime() - iterationStartedAt;
+
+        return singletonList(new ScalarResult("nukleus.cpu", 100.0 * cpuTime / elapsed, "%", AggregationPolicy.AVG));
+    }
+
+    private long nukleusCpuTime()
+    {
+        long cpuTime = 0L;
+
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds()))
+        {
+            if (info != null &&
+                !info.getThreadName().contains("jmh") &&
+                !EchoServer.THREAD_NAME.equals(info.getThreadName()))
+            {
+                cpuTime += Math.max(threads.getThreadCpuTime(info.getThreadId()), 0L);
+            }
+        }
+
+        return cpuTime;
+    }
+}
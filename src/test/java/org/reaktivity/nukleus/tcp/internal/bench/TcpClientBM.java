@@ -0,0 +1,263 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.bench;
+
+import static java.net.StandardSocketOptions.SO_LINGER;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.ByteOrder.nativeOrder;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.reaktivity.nukleus.route.RouteKind.CLIENT;
+import static org.reaktivity.nukleus.route.RouteKind.SERVER;
+import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_DIRECTORY;
+import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_STREAMS_BUFFER_CAPACITY;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Properties;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.tcp.internal.TcpController;
+import org.reaktivity.reaktor.Reaktor;
+
+/**
+ * Benchmarks the client role by proxying loopback connections accepted on the server route
+ * through a client route to a local echo server.
+ * <p>
+ * The echo benchmark proxies through a second route pair to the echo server owned by {@link ReceiverState},
+ * where a non-zero {@code receiverPauseMicros} makes it a slow receiver with a small receive buffer,
+ * so that writes on the client route are partial and queued.
+ * The connect benchmark does not depend on that state, so it is not repeated for each pause.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(SECONDS)
+public class TcpClientBM
+{
+    private static final InetSocketAddress PROXY_ADDRESS = new InetSocketAddress("127.0.0.1", 8080);
+    private static final InetSocketAddress ECHO_ADDRESS = new InetSocketAddress("127.0.0.1", 8081);
+    private static final InetSocketAddress RECEIVER_PROXY_ADDRESS = new InetSocketAddress("127.0.0.1", 8082);
+    private static final InetSocketAddress RECEIVER_ADDRESS = new InetSocketAddress("127.0.0.1", 8083);
+
+    private final Reaktor reaktor;
+    private final TcpController controller;
+    private EchoServer echoServer;
+    private long serverRouteId;
+    private long clientRouteId;
+    private long receiverServerRouteId;
+    private long receiverClientRouteId;
+
+    {
+        Properties properties = new Properties();
+        properties.setProperty(REAKTOR_DIRECTORY.name(), "target/nukleus-benchmarks");
+        properties.setProperty(REAKTOR_STREAMS_BUFFER_CAPACITY.name(), Long.toString(1024L * 1024L * 16L));
+
+        final Configuration configuration = new Configuration(properties);
+
+        this.reaktor = Reaktor.builder()
+                    .config(configuration)
+                    .nukleus("tcp"::equals)
+                    .controller("tcp"::equals)
+                    .errorHandler(ex -> ex.printStackTrace(System.err))
+                    .build();
+
+        this.controller = reaktor.controller(TcpController.class);
+    }
+
+    @Setup(Level.Trial)
+    public void reinit() throws Exception
+    {
+        echoServer = new EchoServer(ECHO_ADDRESS, 0L);
+        echoServer.start();
+
+        reaktor.start();
+        serverRouteId = controller.route(SERVER, "tcp#127.0.0.1:8080", "tcp#0").get();
+        clientRouteId = controller.route(CLIENT, "tcp#0", "127.0.0.1:8081").get();
+        receiverServerRouteId = controller.route(SERVER, "tcp#127.0.0.1:8082", "tcp#1").get();
+        receiverClientRouteId = controller.route(CLIENT, "tcp#1", "127.0.0.1:8083").get();
+    }
+
+    @TearDown(Level.Trial)
+    public void reset() throws Exception
+    {
+        controller.unroute(receiverClientRouteId).get();
+        controller.unroute(receiverServerRouteId).get();
+        controller.unroute(clientRouteId).get();
+        controller.unroute(serverRouteId).get();
+        reaktor.close();
+        echoServer.close();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReceiverState
+    {
+        private EchoServer echoServer;
+
+        @Param({"0", "50"})
+        public int receiverPauseMicros;
+
+        @Setup(Level.Trial)
+        public void init() throws Exception
+        {
+            echoServer = new EchoServer(RECEIVER_ADDRESS, MICROSECONDS.toNanos(receiverPauseMicros));
+            echoServer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void reset() throws Exception
+        {
+            echoServer.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ConnectState
+    {
+        private final ByteBuffer sendByteBuffer = allocateDirect(1).order(nativeOrder());
+        private final ByteBuffer receiveByteBuffer = allocateDirect(1).order(nativeOrder());
+    }
+
+    @State(Scope.Group)
+    public static class GroupState
+    {
+        private final ByteBuffer sendByteBuffer;
+        private final ByteBuffer receiveByteBuffer;
+
+        private SocketChannel channel;
+
+        public GroupState()
+        {
+            final byte[] sendByteArray = new byte[512];
+            final Random random = new Random();
+            for (int i = 0; i < sendByteArray.length; i++)
+            {
+                sendByteArray[i] = (byte) random.nextInt();
+            }
+
+            this.sendByteBuffer = allocateDirect(sendByteArray.length).order(nativeOrder()).put(sendByteArray);
+            this.receiveByteBuffer = allocateDirect(8192).order(nativeOrder());
+        }
+
+        @Setup(Level.Trial)
+        public void init(
+            ReceiverState receiver) throws Exception
+        {
+            channel = SocketChannel.open();
+            channel.connect(RECEIVER_PROXY_ADDRESS);
+            channel.configureBlocking(false);
+        }
+
+        @TearDown(Level.Trial)
+        public void reset() throws Exception
+        {
+            channel.close();
+        }
+    }
+
+    @Benchmark
+    public void connect(
+        final ConnectState state) throws Exception
+    {
+        final ByteBuffer sendByteBuffer = state.sendByteBuffer;
+        final ByteBuffer receiveByteBuffer = state.receiveByteBuffer;
+
+        try (SocketChannel channel = SocketChannel.open())
+        {
+            channel.connect(PROXY_ADDRESS);
+
+            // round trip one byte so the client route has connected before the abortive close resets it
+            sendByteBuffer.clear();
+            channel.write(sendByteBuffer);
+
+            receiveByteBuffer.clear();
+            channel.read(receiveByteBuffer);
+
+            channel.setOption(SO_LINGER, 0);
+        }
+    }
+
+    @Benchmark
+    @Group("echo")
+    @GroupThreads(1)
+    public void reader(
+        final GroupState state) throws Exception
+    {
+        final SocketChannel channel = state.channel;
+        final ByteBuffer receiveByteBuffer = state.receiveByteBuffer;
+
+        receiveByteBuffer.position(0);
+        if (channel.read(receiveByteBuffer) == 0)
+        {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @Group("echo")
+    @GroupThreads(1)
+    public void writer(
+        final GroupState state) throws Exception
+    {
+        final SocketChannel channel = state.channel;
+        final ByteBuffer sendByteBuffer = state.sendByteBuffer;
+
+        sendByteBuffer.position(0);
+        while (sendByteBuffer.hasRemaining())
+        {
+            if (channel.write(sendByteBuffer) == 0)
+            {
+                Thread.yield();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(TcpClientBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .threads(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
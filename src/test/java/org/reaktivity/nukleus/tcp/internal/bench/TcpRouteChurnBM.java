@@ -0,0 +1,185 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.bench;
+
+import static java.net.StandardSocketOptions.SO_LINGER;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.ByteOrder.nativeOrder;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.reaktivity.nukleus.route.RouteKind.CLIENT;
+import static org.reaktivity.nukleus.route.RouteKind.SERVER;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_HISTOGRAMS;
+import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_DIRECTORY;
+import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_STREAMS_BUFFER_CAPACITY;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Properties;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.tcp.internal.TcpController;
+import org.reaktivity.reaktor.Reaktor;
+
+/**
+ * Compares the first accept on a newly created server route with accepts on an established route.
+ * <p>
+ * Routing and unrouting happen outside the measured invocation, so {@code firstAccept} only differs
+ * from {@code accept} by any per route work deferred to the first connection.
+ * With {@code histograms} enabled, each route also registers a counter per power of two bucket of each histogram,
+ * which should happen when routed rather than on the first accept.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(MICROSECONDS)
+public class TcpRouteChurnBM
+{
+    private static final InetSocketAddress STABLE_ADDRESS = new InetSocketAddress("127.0.0.1", 8080);
+    private static final InetSocketAddress CHURN_ADDRESS = new InetSocketAddress("127.0.0.1", 8082);
+    private static final InetSocketAddress ECHO_ADDRESS = new InetSocketAddress("127.0.0.1", 8081);
+
+    private final ByteBuffer sendByteBuffer = allocateDirect(1).order(nativeOrder());
+    private final ByteBuffer receiveByteBuffer = allocateDirect(1).order(nativeOrder());
+
+    private Reaktor reaktor;
+    private TcpController controller;
+    private EchoServer echoServer;
+    private long serverRouteId;
+    private long clientRouteId;
+
+    @Param({ "false", "true" })
+    public boolean histograms;
+
+    @Setup(Level.Trial)
+    public void reinit() throws Exception
+    {
+        Properties properties = new Properties();
+        properties.setProperty(REAKTOR_DIRECTORY.name(), "target/nukleus-benchmarks");
+        properties.setProperty(REAKTOR_STREAMS_BUFFER_CAPACITY.name(), Long.toString(1024L * 1024L * 16L));
+        properties.setProperty(TCP_HISTOGRAMS.name(), Boolean.toString(histograms));
+
+        final Configuration configuration = new Configuration(properties);
+
+        this.reaktor = Reaktor.builder()
+                    .config(configuration)
+                    .nukleus("tcp"::equals)
+                    .controller("tcp"::equals)
+                    .errorHandler(ex -> ex.printStackTrace(System.err))
+                    .build();
+
+        this.controller = reaktor.controller(TcpController.class);
+
+        echoServer = new EchoServer(ECHO_ADDRESS, 0L);
+        echoServer.start();
+
+        reaktor.start();
+        serverRouteId = controller.route(SERVER, "tcp#127.0.0.1:8080", "tcp#0").get();
+        clientRouteId = controller.route(CLIENT, "tcp#0", "127.0.0.1:8081").get();
+    }
+
+    @TearDown(Level.Trial)
+    public void reset() throws Exception
+    {
+        controller.unroute(clientRouteId).get();
+        controller.unroute(serverRouteId).get();
+        reaktor.close();
+        echoServer.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ChurnState
+    {
+        private long routeId;
+
+        @Setup(Level.Invocation)
+        public void route(
+            TcpRouteChurnBM benchmark) throws Exception
+        {
+            routeId = benchmark.controller.route(SERVER, "tcp#127.0.0.1:8082", "tcp#0").get();
+        }
+
+        @TearDown(Level.Invocation)
+        public void unroute(
+            TcpRouteChurnBM benchmark) throws Exception
+        {
+            benchmark.controller.unroute(routeId).get();
+        }
+    }
+
+    @Benchmark
+    public void accept() throws Exception
+    {
+        roundTrip(STABLE_ADDRESS);
+    }
+
+    @Benchmark
+    public void firstAccept(
+        final ChurnState state) throws Exception
+    {
+        roundTrip(CHURN_ADDRESS);
+    }
+
+    private void roundTrip(
+        InetSocketAddress address) throws Exception
+    {
+        try (SocketChannel channel = SocketChannel.open())
+        {
+            channel.connect(address);
+
+            sendByteBuffer.clear();
+            channel.write(sendByteBuffer);
+
+            receiveByteBuffer.clear();
+            channel.read(receiveByteBuffer);
+
+            channel.setOption(SO_LINGER, 0);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(TcpRouteChurnBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .threads(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
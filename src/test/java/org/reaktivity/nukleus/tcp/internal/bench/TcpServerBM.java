@@ -41,6 +41,7 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -168,6 +169,7 @@ public class TcpServerBM
     {
         Options opt = new OptionsBuilder()
                 .include(TcpServerBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
                 .forks(0)
                 .threads(1)
                 .build();
@@ -0,0 +1,252 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.bench;
+
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.ByteOrder.nativeOrder;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.reaktivity.nukleus.route.RouteKind.CLIENT;
+import static org.reaktivity.nukleus.route.RouteKind.SERVER;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_MAXIMUM_BACKLOG;
+import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_DIRECTORY;
+import static org.reaktivity.reaktor.ReaktorConfiguration.REAKTOR_STREAMS_BUFFER_CAPACITY;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Properties;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.tcp.internal.TcpController;
+import org.reaktivity.reaktor.Reaktor;
+
+/**
+ * Benchmarks the server role with many concurrent loopback connections, each echoing through a client route
+ * to a local echo server.
+ * <p>
+ * Each benchmark thread owns a slice of the connections and round trips one message per operation,
+ * rotating over the {@code dutyCycle} percent of its slice that is active in the current pass.
+ * Throughput reports aggregate messages per unit time and sample time reports the echo latency percentiles.
+ * Run with {@code -prof org.reaktivity.nukleus.tcp.internal.bench.NukleusCpuProfiler} to report the CPU time
+ * spent by nukleus threads, see {@link NukleusCpuProfiler}.
+ * <p>
+ * Each message crosses the server route and then the client route to the echo server, so the poller handles
+ * twice as many connections as are opened here, and both latency and CPU time cover both roles.
+ * Subtract the client role cost measured by {@link TcpClientBM} to estimate the server path alone.
+ * <p>
+ * Connections are spread over one server and client route pair per {@value #ROUTE_CONNECTIONS} connections,
+ * each using a distinct port and loopback address so that ephemeral ports are not exhausted.
+ * Larger connection counts need the open files limit raised accordingly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(MICROSECONDS)
+public class TcpServerFanInBM
+{
+    private static final int ROUTE_CONNECTIONS = 20000;
+    private static final int SERVER_PORT = 8080;
+    private static final int ECHO_PORT = 9090;
+
+    private Reaktor reaktor;
+    private TcpController controller;
+    private EchoServer echoServer;
+    private long[] routeIds;
+    private SocketChannel[] channels;
+
+    @Param({ "1000", "10000", "100000" })
+    public int connections;
+
+    @Param({ "64", "1024" })
+    public int messageSize;
+
+    @Param({ "100", "10" })
+    public int dutyCycle;
+
+    @Setup(Level.Trial)
+    public void reinit() throws Exception
+    {
+        Properties properties = new Properties();
+        properties.setProperty(REAKTOR_DIRECTORY.name(), "target/nukleus-benchmarks");
+        properties.setProperty(REAKTOR_STREAMS_BUFFER_CAPACITY.name(), Long.toString(1024L * 1024L * 64L));
+        properties.setProperty(TCP_MAXIMUM_BACKLOG.name(), Integer.toString(1024));
+
+        final Configuration configuration = new Configuration(properties);
+
+        this.reaktor = Reaktor.builder()
+                    .config(configuration)
+                    .nukleus("tcp"::equals)
+                    .controller("tcp"::equals)
+                    .errorHandler(ex -> ex.printStackTrace(System.err))
+                    .build();
+
+        this.controller = reaktor.controller(TcpController.class);
+
+        echoServer = new EchoServer(new InetSocketAddress("0.0.0.0", ECHO_PORT), 0L);
+        echoServer.start();
+
+        reaktor.start();
+
+        final int routes = (connections + ROUTE_CONNECTIONS - 1) / ROUTE_CONNECTIONS;
+        routeIds = new long[routes << 1];
+        for (int i = 0; i < routes; i++)
+        {
+            final String serverAddress = String.format("tcp#127.0.0.1:%d", SERVER_PORT + i);
+            final String clientAddress = String.format("127.0.0.%d:%d", i + 1, ECHO_PORT);
+            routeIds[i << 1] = controller.route(SERVER, serverAddress, "tcp#" + i).get();
+            routeIds[(i << 1) + 1] = controller.route(CLIENT, "tcp#" + i, clientAddress).get();
+        }
+
+        channels = new SocketChannel[connections];
+        for (int i = 0; i < connections; i++)
+        {
+            final SocketChannel channel = SocketChannel.open();
+            channel.setOption(TCP_NODELAY, true);
+            channel.connect(new InetSocketAddress("127.0.0.1", SERVER_PORT + i / ROUTE_CONNECTIONS));
+            channels[i] = channel;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void reset() throws Exception
+    {
+        for (SocketChannel channel : channels)
+        {
+            channel.close();
+        }
+
+        for (long routeId : routeIds)
+        {
+            controller.unroute(routeId).get();
+        }
+
+        reaktor.close();
+        echoServer.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ConnectionState
+    {
+        private SocketChannel[] channels;
+        private ByteBuffer sendByteBuffer;
+        private ByteBuffer receiveByteBuffer;
+
+        private int first;
+        private int count;
+        private int active;
+        private int window;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void init(
+            TcpServerFanInBM benchmark,
+            ThreadParams params)
+        {
+            final int messageSize = benchmark.messageSize;
+            final byte[] sendByteArray = new byte[messageSize];
+            final Random random = new Random();
+            for (int i = 0; i < sendByteArray.length; i++)
+            {
+                sendByteArray[i] = (byte) random.nextInt();
+            }
+
+            this.sendByteBuffer = allocateDirect(messageSize).order(nativeOrder()).put(sendByteArray);
+            this.receiveByteBuffer = allocateDirect(messageSize).order(nativeOrder());
+
+            final int threadCount = params.getThreadCount();
+            final int threadIndex = params.getThreadIndex();
+
+            this.channels = benchmark.channels;
+            this.first = benchmark.connections * threadIndex / threadCount;
+            this.count = benchmark.connections * (threadIndex + 1) / threadCount - first;
+            this.active = Math.max(count * benchmark.dutyCycle / 100, 1);
+        }
+
+        private SocketChannel next()
+        {
+            final SocketChannel channel = channels[first + (window + cursor) % count];
+
+            if (++cursor == active)
+            {
+                cursor = 0;
+                window = (window + active) % count;
+            }
+
+            return channel;
+        }
+    }
+
+    @Benchmark
+    public void echo(
+        final ConnectionState state) throws Exception
+    {
+        final SocketChannel channel = state.next();
+        final ByteBuffer sendByteBuffer = state.sendByteBuffer;
+        final ByteBuffer receiveByteBuffer = state.receiveByteBuffer;
+
+        sendByteBuffer.clear();
+        while (sendByteBuffer.hasRemaining())
+        {
+            channel.write(sendByteBuffer);
+        }
+
+        receiveByteBuffer.clear();
+        while (receiveByteBuffer.hasRemaining())
+        {
+            if (channel.read(receiveByteBuffer) == -1)
+            {
+                throw new IllegalStateException("connection closed");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(TcpServerFanInBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .addProfiler(NukleusCpuProfiler.class)
+                .forks(0)
+                .threads(4)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
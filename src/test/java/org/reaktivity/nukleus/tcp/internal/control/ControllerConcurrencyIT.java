@@ -0,0 +1,144 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.control;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.reaktivity.nukleus.route.RouteKind.SERVER;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_COMMAND_QUEUE_CAPACITY;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+import org.reaktivity.nukleus.tcp.internal.TcpController;
+import org.reaktivity.reaktor.test.ReaktorRule;
+
+public class ControllerConcurrencyIT
+{
+    private static final int PORT = 8200;
+    private static final int THREADS = 8;
+    private static final int ROUTES_PER_THREAD = 64;
+
+    private final TestRule timeout = new DisableOnDebug(new Timeout(30, SECONDS));
+
+    // smallest command queue, so commands offered by all threads at once exceed its capacity
+    private final ReaktorRule reaktor = new ReaktorRule()
+        .nukleus("tcp"::equals)
+        .controller("tcp"::equals)
+        .directory("target/nukleus-itests")
+        .commandBufferCapacity(1024)
+        .responseBufferCapacity(1024)
+        .counterValuesBufferCapacity(4096)
+        .configure(TCP_COMMAND_QUEUE_CAPACITY, 0)
+        .clean();
+
+    @Rule
+    public final TestRule chain = outerRule(timeout).around(reaktor);
+
+    @Test
+    public void shouldRouteAndUnrouteFromManyThreads() throws Exception
+    {
+        final TcpController controller = reaktor.controller(TcpController.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try
+        {
+            final List<Future<List<Long>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++)
+            {
+                final int firstPort = PORT + t * ROUTES_PER_THREAD;
+                results.add(executor.submit(() -> routeAndUnroute(controller, firstPort)));
+            }
+
+            final Set<Long> routeIds = new HashSet<>();
+            for (Future<List<Long>> result : results)
+            {
+                routeIds.addAll(result.get());
+            }
+
+            assertEquals(THREADS * ROUTES_PER_THREAD, routeIds.size());
+
+            for (int i = 0; i < THREADS * ROUTES_PER_THREAD; i++)
+            {
+                assertFalse(isListening(PORT + i));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    // offers every route before waiting on any, then every unroute, so the queue fills up
+    private static List<Long> routeAndUnroute(
+        TcpController controller,
+        int firstPort) throws Exception
+    {
+        final List<CompletableFuture<Long>> routeFutures = new ArrayList<>();
+        for (int i = 0; i < ROUTES_PER_THREAD; i++)
+        {
+            routeFutures.add(controller.route(SERVER, "tcp#127.0.0.1:" + (firstPort + i), "target#0"));
+        }
+
+        final List<Long> routeIds = new ArrayList<>();
+        for (CompletableFuture<Long> routeFuture : routeFutures)
+        {
+            routeIds.add(routeFuture.get());
+        }
+
+        final List<CompletableFuture<Void>> unrouteFutures = new ArrayList<>();
+        for (long routeId : routeIds)
+        {
+            unrouteFutures.add(controller.unroute(routeId));
+        }
+
+        for (CompletableFuture<Void> unrouteFuture : unrouteFutures)
+        {
+            unrouteFuture.get();
+        }
+
+        return routeIds;
+    }
+
+    private static boolean isListening(
+        int port)
+    {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port)))
+        {
+            return true;
+        }
+        catch (IOException ex)
+        {
+            return false;
+        }
+    }
+}
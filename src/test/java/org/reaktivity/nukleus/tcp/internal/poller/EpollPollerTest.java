@@ -0,0 +1,150 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import static java.nio.channels.SelectionKey.OP_READ;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.agrona.CloseHelper;
+import org.agrona.LangUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class EpollPollerTest
+{
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(4);
+
+    private EpollPoller poller;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private SocketChannel accepted;
+    private int bytesRead;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        assumeTrue(System.getProperty("os.name").startsWith("Linux"));
+        assertTrue("requires --add-opens java.base/sun.nio.ch=ALL-UNNAMED", EpollPoller.isAvailable());
+
+        poller = new EpollPoller(16);
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        accepted = server.accept();
+        accepted.configureBlocking(false);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (poller != null)
+        {
+            poller.onClose();
+        }
+
+        CloseHelper.quietClose(accepted);
+        CloseHelper.quietClose(client);
+        CloseHelper.quietClose(server);
+    }
+
+    @Test
+    public void shouldDispatchReadableUntilDrained() throws Exception
+    {
+        poller.doRegister(accepted, OP_READ, this::onReadable);
+
+        client.write(ByteBuffer.wrap(new byte[10]));
+
+        // one edge, read 4 bytes at a time
+        for (int i = 0; i < 1000 && bytesRead < 10; i++)
+        {
+            poller.doWork();
+            Thread.sleep(1L);
+        }
+
+        assertEquals(10, bytesRead);
+        assertEquals(0, poller.doWork());
+    }
+
+    @Test
+    public void shouldRemoveKeyWhenClosed() throws Exception
+    {
+        poller.doRegister(accepted, OP_READ, this::onReadable);
+        assertEquals(1, poller.keyCount());
+
+        poller.doClose(accepted);
+
+        assertFalse(accepted.isOpen());
+        assertEquals(0, poller.keyCount());
+    }
+
+    @Test
+    public void shouldRemoveKeyWhenClosedWithReadinessPending() throws Exception
+    {
+        poller.doRegister(accepted, OP_READ, k -> 1);
+        client.write(ByteBuffer.wrap(new byte[1]));
+
+        for (int i = 0; i < 1000 && poller.doWork() == 0; i++)
+        {
+            Thread.sleep(1L);
+        }
+
+        poller.doClose(accepted);
+
+        assertEquals(0, poller.doWork());
+        assertEquals(0, poller.keyCount());
+    }
+
+    @Test
+    public void shouldInvokeCloseHandlersWhenClosed() throws Exception
+    {
+        final int[] closed = new int[1];
+        poller.addCloseHandler(() -> closed[0]++);
+
+        poller.onClose();
+        poller = null;
+
+        assertEquals(1, closed[0]);
+    }
+
+    private int onReadable(
+        PollerKey key)
+    {
+        int bytes = 0;
+
+        try
+        {
+            readBuffer.clear();
+            bytes = Math.max(accepted.read(readBuffer), 0);
+            bytesRead += bytes;
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        return bytes;
+    }
+}
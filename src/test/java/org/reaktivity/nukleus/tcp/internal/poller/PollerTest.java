@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.poller;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.channels.SelectableChannel;
+import java.util.function.ToIntFunction;
+
+import org.junit.Test;
+
+public final class PollerTest
+{
+    private final Poller poller = new Poller()
+    {
+        @Override
+        public PollerKey doRegister(
+            SelectableChannel channel,
+            int interestOps,
+            ToIntFunction<PollerKey> handler)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void doClose(
+            SelectableChannel channel)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected int doSelect()
+        {
+            return 0;
+        }
+    };
+
+    @Test
+    public void shouldExpireTimerScheduledAfterIdle() throws Exception
+    {
+        final int[] expired = new int[1];
+
+        // idle without timers for many ticks
+        for (int i = 0; i < 50; i++)
+        {
+            poller.doWork();
+            Thread.sleep(2L);
+        }
+
+        poller.scheduleTimer(MILLISECONDS.toNanos(1L), () -> expired[0]++);
+        Thread.sleep(10L);
+
+        for (int i = 0; i < 4 && expired[0] == 0; i++)
+        {
+            poller.doWork();
+        }
+
+        assertEquals(1, expired[0]);
+    }
+
+    @Test
+    public void shouldNotExpireCancelledTimer() throws Exception
+    {
+        final int[] expired = new int[1];
+
+        final long timerId = poller.scheduleTimer(MILLISECONDS.toNanos(1L), () -> expired[0]++);
+        poller.cancelTimer(timerId);
+        Thread.sleep(10L);
+
+        for (int i = 0; i < 4; i++)
+        {
+            poller.doWork();
+        }
+
+        assertEquals(0, expired[0]);
+    }
+}
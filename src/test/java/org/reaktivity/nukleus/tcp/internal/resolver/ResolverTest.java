@@ -0,0 +1,161 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.tcp.internal.resolver.Resolver.MAXIMUM_ENTRIES;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+public final class ResolverTest
+{
+    private final List<Runnable> lookups = new ArrayList<>();
+    private long now;
+
+    private final Resolver resolver = new Resolver(lookups::add, 30L, 10L, () -> now);
+
+    @Test
+    public void shouldLookupLiteralAddressWithoutResolving() throws Exception
+    {
+        InetAddress[] addresses = resolver.lookup("127.0.0.1");
+
+        assertEquals(InetAddress.getByName("127.0.0.1"), addresses[0]);
+        assertEquals(0, lookups.size());
+    }
+
+    @Test
+    public void shouldResolveAsynchronously() throws Exception
+    {
+        List<InetAddress[]> resolved = new ArrayList<>();
+
+        resolver.resolve("localhost", resolved::add);
+
+        assertNull(resolver.lookup("localhost"));
+        assertEquals(1, lookups.size());
+        assertEquals(0, resolved.size());
+
+        lookups.remove(0).run();
+
+        assertEquals(1, resolver.doWork());
+        assertEquals(1, resolved.size());
+        assertNotNull(resolver.lookup("localhost"));
+        assertEquals(0, lookups.size());
+    }
+
+    @Test
+    public void shouldRefreshExpiredEntry() throws Exception
+    {
+        resolver.lookup("localhost");
+        lookups.remove(0).run();
+        resolver.doWork();
+
+        now += 31L;
+
+        assertNotNull(resolver.lookup("localhost"));
+        assertEquals(1, lookups.size());
+    }
+
+    @Test
+    public void shouldNotNotifyCancelledHandler() throws Exception
+    {
+        List<InetAddress[]> resolved = new ArrayList<>();
+        Consumer<InetAddress[]> handler = resolved::add;
+
+        resolver.resolve("localhost", handler);
+        resolver.cancel("localhost", handler);
+        lookups.remove(0).run();
+        resolver.doWork();
+
+        assertEquals(0, resolved.size());
+    }
+
+    @Test
+    public void shouldCompleteUnresolvedWhenLookupThrows() throws Exception
+    {
+        List<InetAddress[]> resolved = new ArrayList<>();
+        Resolver resolver = new Resolver(lookups::add, h ->
+        {
+            throw new SecurityException(h);
+        }, 30L, 10L, () -> now);
+
+        resolver.resolve("localhost", resolved::add);
+        lookups.remove(0).run();
+
+        assertEquals(1, resolver.doWork());
+        assertEquals(1, resolved.size());
+        assertEquals(0, resolved.get(0).length);
+
+        now += 11L;
+
+        assertEquals(0, resolver.lookup("localhost").length);
+        assertEquals(1, lookups.size());
+    }
+
+    @Test
+    public void shouldCompleteUnresolvedWhenExecutorRejects() throws Exception
+    {
+        List<InetAddress[]> resolved = new ArrayList<>();
+        Resolver resolver = new Resolver(r ->
+        {
+            throw new RejectedExecutionException();
+        }, 30L, 10L, () -> now);
+
+        resolver.resolve("localhost", resolved::add);
+
+        assertEquals(1, resolver.doWork());
+        assertEquals(1, resolved.size());
+        assertEquals(0, resolved.get(0).length);
+    }
+
+    @Test
+    public void shouldEvictWhenFull() throws Exception
+    {
+        for (int i = 0; i <= MAXIMUM_ENTRIES; i++)
+        {
+            resolver.lookup(String.format("10.0.%d.%d", i >> 8, i & 0xff));
+        }
+
+        assertEquals(MAXIMUM_ENTRIES, resolver.entryCount());
+    }
+
+    @Test
+    public void shouldNotEvictWhileResolving() throws Exception
+    {
+        List<InetAddress[]> resolved = new ArrayList<>();
+
+        resolver.resolve("localhost", resolved::add);
+
+        for (int i = 0; i <= MAXIMUM_ENTRIES; i++)
+        {
+            resolver.lookup(String.format("10.0.%d.%d", i >> 8, i & 0xff));
+        }
+
+        lookups.remove(0).run();
+        resolver.doWork();
+
+        assertEquals(1, resolved.size());
+        assertTrue(resolver.entryCount() <= MAXIMUM_ENTRIES);
+    }
+}
@@ -0,0 +1,309 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_ACCEPT_BUDGET;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_ACCEPT_RATE;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_MAX_CONNECTIONS;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.buffer.BufferPool;
+import org.reaktivity.nukleus.function.MessageConsumer;
+import org.reaktivity.nukleus.route.RouteManager;
+import org.reaktivity.nukleus.tcp.internal.TcpConfiguration;
+import org.reaktivity.nukleus.tcp.internal.TcpCounters;
+import org.reaktivity.nukleus.tcp.internal.poller.NioPoller;
+import org.reaktivity.nukleus.tcp.internal.types.control.Role;
+import org.reaktivity.nukleus.tcp.internal.types.control.RouteFW;
+import org.reaktivity.nukleus.tcp.internal.types.control.UnrouteFW;
+import org.reaktivity.nukleus.tcp.internal.types.stream.BeginFW;
+
+public final class AcceptorTest
+{
+    private static final long ROUTE_ID = 1L;
+
+    @Rule
+    public final JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final RouteManager router = context.mock(RouteManager.class);
+    private final BufferPool bufferPool = context.mock(BufferPool.class);
+
+    private final MutableDirectBuffer routeBuffer = new UnsafeBuffer(new byte[1024]);
+    private final RouteFW.Builder routeRW = new RouteFW.Builder();
+    private final UnrouteFW.Builder unrouteRW = new UnrouteFW.Builder();
+
+    private final List<SocketChannel> peers = new ArrayList<>();
+
+    private NioPoller poller;
+    private InetSocketAddress address;
+    private long initialId;
+    private int accepted;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        context.checking(new Expectations()
+        {
+            {
+                allowing(bufferPool).slotCapacity();
+                will(returnValue(8192));
+                allowing(router).supplyReceiver(with(any(long.class)));
+                will(returnValue((MessageConsumer) AcceptorTest.this::onApplication));
+                allowing(router).setThrottle(with(any(long.class)), with(any(MessageConsumer.class)));
+            }
+        });
+
+        poller = new NioPoller();
+
+        try (ServerSocketChannel ephemeral = ServerSocketChannel.open())
+        {
+            ephemeral.bind(new InetSocketAddress("127.0.0.1", 0));
+            address = (InetSocketAddress) ephemeral.getLocalAddress();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        peers.forEach(CloseHelper::quietClose);
+        poller.onClose();
+    }
+
+    @Test
+    public void shouldAcceptWholeBacklogByDefault() throws Exception
+    {
+        newAcceptor(new Properties());
+        connect(5);
+
+        poller.doWork();
+
+        assertEquals(5, accepted);
+    }
+
+    @Test
+    public void shouldAcceptUpToBudgetPerCycle() throws Exception
+    {
+        final Properties properties = new Properties();
+        properties.setProperty(TCP_ACCEPT_BUDGET.name(), "2");
+
+        newAcceptor(properties);
+        connect(5);
+
+        poller.doWork();
+        assertEquals(2, accepted);
+
+        poller.doWork();
+        assertEquals(4, accepted);
+
+        poller.doWork();
+        assertEquals(5, accepted);
+    }
+
+    @Test
+    public void shouldAcceptBurstThenResumeWhenTokenDue() throws Exception
+    {
+        final Properties properties = new Properties();
+        properties.setProperty(TCP_ACCEPT_RATE.name(), "10");
+
+        newAcceptor(properties);
+        connect(12);
+
+        poller.doWork();
+        assertEquals(10, accepted);
+
+        final long suspendedAt = System.nanoTime();
+        while (System.nanoTime() - suspendedAt < TimeUnit.MILLISECONDS.toNanos(50L))
+        {
+            poller.doWork();
+        }
+        assertEquals(10, accepted);
+
+        pollUntil(() -> accepted == 11);
+        assertTrue(System.nanoTime() - suspendedAt >= TimeUnit.MILLISECONDS.toNanos(50L));
+
+        pollUntil(() -> accepted == 12);
+    }
+
+    @Test
+    public void shouldNotAcceptWhenUnroutedWhileSuspended() throws Exception
+    {
+        final Properties properties = new Properties();
+        properties.setProperty(TCP_ACCEPT_RATE.name(), "20");
+
+        final Acceptor acceptor = newAcceptor(properties);
+        connect(21);
+
+        poller.doWork();
+        assertEquals(20, accepted);
+
+        poller.doWork();
+
+        final UnrouteFW unroute = unrouteRW.wrap(routeBuffer, 0, routeBuffer.capacity())
+                .correlationId(ROUTE_ID)
+                .nukleus("tcp")
+                .routeId(ROUTE_ID)
+                .build();
+        acceptor.handleRouted(UnrouteFW.TYPE_ID, unroute.buffer(), unroute.offset(), unroute.sizeof());
+
+        final long unroutedAt = System.nanoTime();
+        while (System.nanoTime() - unroutedAt < TimeUnit.MILLISECONDS.toNanos(100L))
+        {
+            poller.doWork();
+        }
+        assertEquals(20, accepted);
+    }
+
+    @Test
+    public void shouldKeepBacklogWhilePausedWithOneShard() throws Exception
+    {
+        final Properties properties = new Properties();
+        properties.setProperty(TCP_MAX_CONNECTIONS.name(), "2");
+
+        final Acceptor acceptor = newAcceptor(properties);
+        connect(3);
+
+        poller.doWork();
+        poller.doWork();
+        assertEquals(2, accepted);
+
+        acceptor.onChannelClosed();
+
+        poller.doWork();
+        assertEquals(3, accepted);
+    }
+
+    @Test
+    public void shouldKeepBacklogWhilePausedWithManyShards() throws Exception
+    {
+        final Properties properties = new Properties();
+        properties.setProperty(TCP_MAX_CONNECTIONS.name(), "4");
+
+        // a share of 2 connections, while the other shard may still have room
+        final Acceptor acceptor = newAcceptor(properties, 2);
+        connect(2);
+
+        poller.doWork();
+        assertEquals(2, accepted);
+
+        // still bound, so connections spread to this full shard wait in its backlog
+        connect(2);
+        poller.doWork();
+        assertEquals(2, accepted);
+
+        acceptor.onChannelClosed();
+
+        poller.doWork();
+        poller.doWork();
+        assertEquals(3, accepted);
+    }
+
+    private Acceptor newAcceptor(
+        Properties properties)
+    {
+        return newAcceptor(properties, 1);
+    }
+
+    private Acceptor newAcceptor(
+        Properties properties,
+        int shards)
+    {
+        final TcpConfiguration config = new TcpConfiguration(new Configuration(properties));
+        final TcpCounters counters = new TcpCounters(n -> () -> 0L, n -> v -> {}, new Long2ObjectHashMap<>(), false);
+        final Acceptor acceptor = new Acceptor(config, 0, () -> shards);
+
+        final TcpServerFactory factory = new TcpServerFactory(
+            config,
+            router,
+            new UnsafeBuffer(new byte[8192]),
+            bufferPool,
+            r -> initialId = (initialId + 2L) | 1L,
+            () -> 0L,
+            t -> 1,
+            i -> i & ~1L,
+            poller,
+            counters,
+            acceptor::onChannelClosed);
+
+        acceptor.setPoller(poller);
+        acceptor.setServerFactory(factory);
+
+        final RouteFW route = routeRW.wrap(routeBuffer, 0, routeBuffer.capacity())
+                .correlationId(ROUTE_ID)
+                .nukleus("tcp")
+                .role(b -> b.set(Role.SERVER))
+                .localAddress(String.format("tcp#127.0.0.1:%d", address.getPort()))
+                .remoteAddress("target#0")
+                .build();
+        acceptor.handleRouted(RouteFW.TYPE_ID, route.buffer(), route.offset(), route.sizeof());
+
+        return acceptor;
+    }
+
+    private void connect(
+        int count) throws Exception
+    {
+        for (int i = 0; i < count; i++)
+        {
+            peers.add(SocketChannel.open(address));
+        }
+    }
+
+    private void onApplication(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        if (msgTypeId == BeginFW.TYPE_ID)
+        {
+            accepted++;
+        }
+    }
+
+    private void pollUntil(
+        BooleanSupplier condition)
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+
+        while (!condition.getAsBoolean())
+        {
+            assertTrue("timed out", System.nanoTime() - deadline < 0L);
+            poller.doWork();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_CONNECT_ATTEMPT_DELAY;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_CONNECT_TIMEOUT;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.jmock.Expectations;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.buffer.BufferPool;
+import org.reaktivity.nukleus.function.MessageConsumer;
+import org.reaktivity.nukleus.function.MessageFunction;
+import org.reaktivity.nukleus.function.MessagePredicate;
+import org.reaktivity.nukleus.route.RouteManager;
+import org.reaktivity.nukleus.tcp.internal.TcpConfiguration;
+import org.reaktivity.nukleus.tcp.internal.TcpCounters;
+import org.reaktivity.nukleus.tcp.internal.poller.NioPoller;
+import org.reaktivity.nukleus.tcp.internal.resolver.Resolver;
+import org.reaktivity.nukleus.tcp.internal.types.control.Role;
+import org.reaktivity.nukleus.tcp.internal.types.control.RouteFW;
+import org.reaktivity.nukleus.tcp.internal.types.stream.BeginFW;
+import org.reaktivity.nukleus.tcp.internal.types.stream.ResetFW;
+import org.reaktivity.nukleus.tcp.internal.types.stream.TcpBeginExFW;
+
+/**
+ * Tests staggered connect attempts across the addresses of a host name, see RFC 8305.
+ */
+public final class TcpClientFactoryTest
+{
+    private static final long ROUTE_ID = 1L;
+    private static final long INITIAL_ID = 3L;
+    private static final String HOST = "happy.eyeballs.test";
+    private static final int ATTEMPT_DELAY = 50;
+    private static final int CONNECT_TIMEOUT = 200;
+
+    @Rule
+    public final JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final RouteManager router = context.mock(RouteManager.class);
+    private final BufferPool bufferPool = context.mock(BufferPool.class);
+
+    private final MutableDirectBuffer frameBuffer = new UnsafeBuffer(new byte[1024]);
+    private final MutableDirectBuffer routeBuffer = new UnsafeBuffer(new byte[1024]);
+    private final MutableDirectBuffer extensionBuffer = new UnsafeBuffer(new byte[1024]);
+    private final BeginFW.Builder beginRW = new BeginFW.Builder();
+    private final RouteFW.Builder routeRW = new RouteFW.Builder();
+    private final TcpBeginExFW.Builder beginExRW = new TcpBeginExFW.Builder();
+
+    private final List<Integer> received = new ArrayList<>();
+    private final List<ServerSocketChannel> servers = new ArrayList<>();
+    private final List<SocketChannel> peers = new ArrayList<>();
+
+    private InetAddress[] addresses;
+    private NioPoller poller;
+    private int port;
+    private RouteFW route;
+    private TcpClientFactory factory;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        context.checking(new Expectations()
+        {
+            {
+                allowing(bufferPool).slotCapacity();
+                will(returnValue(8192));
+                allowing(router).resolve(with(any(long.class)), with(any(long.class)),
+                        with(any(MessagePredicate.class)), with(any(MessageFunction.class)));
+                will(delegate("resolve", p -> resolve((MessagePredicate) p[2], (MessageFunction<?>) p[3])));
+                allowing(router).setThrottle(with(any(long.class)), with(any(MessageConsumer.class)));
+            }
+        });
+
+        final ServerSocketChannel server = listen(new InetSocketAddress("127.0.0.1", 0));
+        port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+
+        route = routeRW.wrap(routeBuffer, 0, routeBuffer.capacity())
+                .correlationId(ROUTE_ID)
+                .nukleus("tcp")
+                .role(b -> b.set(Role.CLIENT))
+                .localAddress("tcp#0")
+                .remoteAddress(String.format("127.0.0.0/8:%d", port))
+                .build();
+
+        final Properties properties = new Properties();
+        properties.setProperty(TCP_CONNECT_ATTEMPT_DELAY.name(), Integer.toString(ATTEMPT_DELAY));
+        properties.setProperty(TCP_CONNECT_TIMEOUT.name(), Integer.toString(CONNECT_TIMEOUT));
+
+        final TcpConfiguration config = new TcpConfiguration(new Configuration(properties));
+        final TcpCounters counters = new TcpCounters(n -> () -> 0L, n -> v -> {}, new Long2ObjectHashMap<>(), false);
+        final Resolver resolver = new Resolver(Runnable::run, this::lookup, Long.MAX_VALUE, Long.MAX_VALUE, System::nanoTime);
+
+        poller = new NioPoller();
+        poller.addCycleHandler(resolver::doWork);
+
+        factory = new TcpClientFactory(
+            config,
+            router,
+            poller,
+            resolver,
+            new UnsafeBuffer(new byte[8192]),
+            bufferPool,
+            i -> i & ~1L,
+            () -> 0L,
+            t -> 1,
+            counters,
+            new Long2ObjectHashMap<>(),
+            new Long2ObjectHashMap<>());
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        peers.forEach(CloseHelper::quietClose);
+        servers.forEach(CloseHelper::quietClose);
+        poller.onClose();
+    }
+
+    @Test
+    public void shouldConnectWhenFirstAttemptLoses() throws Exception
+    {
+        addresses = new InetAddress[] { address("127.0.0.2"), address("127.0.0.1") };
+
+        doBegin();
+        pollUntil(() -> !received.isEmpty());
+
+        assertTrue(received.contains(BeginFW.TYPE_ID));
+        assertNotNull(accept(servers.get(0)));
+    }
+
+    @Test
+    public void shouldResetWhenAllAttemptsFail() throws Exception
+    {
+        addresses = new InetAddress[] { address("127.0.0.2"), address("127.0.0.3") };
+
+        doBegin();
+        pollUntil(() -> !received.isEmpty());
+
+        assertTrue(received.contains(ResetFW.TYPE_ID));
+        assertFalse(received.contains(BeginFW.TYPE_ID));
+    }
+
+    @Test
+    public void shouldCancelRemainingAttemptsWhenConnected() throws Exception
+    {
+        final ServerSocketChannel loser = listen(new InetSocketAddress("127.0.0.2", port));
+        addresses = new InetAddress[] { address("127.0.0.1"), address("127.0.0.2") };
+
+        doBegin();
+        pollUntil(() -> !received.isEmpty());
+
+        assertTrue(received.contains(BeginFW.TYPE_ID));
+        assertNotNull(accept(servers.get(0)));
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ATTEMPT_DELAY * 2);
+        pollUntil(() -> System.nanoTime() - deadline >= 0L);
+
+        assertNull(accept(loser));
+    }
+
+    @Test
+    public void shouldResetWhenConnectTimesOut() throws Exception
+    {
+        // a full accept queue drops further connection requests, leaving the connect pending
+        final InetSocketAddress backlogged = new InetSocketAddress("127.0.0.4", port);
+        listen(backlogged, 1);
+        peers.add(SocketChannel.open(backlogged));
+        peers.add(SocketChannel.open(backlogged));
+
+        addresses = new InetAddress[] { address("127.0.0.4") };
+
+        final long connectingAt = System.nanoTime();
+        doBegin();
+        pollUntil(() -> !received.isEmpty());
+
+        assertTrue(received.contains(ResetFW.TYPE_ID));
+        assertTrue(System.nanoTime() - connectingAt >= TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT));
+    }
+
+    private void doBegin()
+    {
+        final TcpBeginExFW beginEx = beginExRW.wrap(extensionBuffer, 0, extensionBuffer.capacity())
+                .typeId(1)
+                .localAddress(a -> a.ipv4Address(b -> b.set(new byte[4])))
+                .localPort(0)
+                .remoteAddress(a -> a.host(HOST))
+                .remotePort(port)
+                .build();
+
+        final BeginFW begin = beginRW.wrap(frameBuffer, 0, frameBuffer.capacity())
+                .routeId(ROUTE_ID)
+                .streamId(INITIAL_ID)
+                .traceId(0L)
+                .affinity(INITIAL_ID)
+                .extension(beginEx.buffer(), beginEx.offset(), beginEx.sizeof())
+                .build();
+
+        final MessageConsumer application = (t, b, i, l) -> received.add(t);
+        final MessageConsumer initial =
+                factory.newStream(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof(), application);
+
+        assertNotNull(initial);
+        initial.accept(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof());
+    }
+
+    private void pollUntil(
+        BooleanSupplier condition)
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+
+        while (!condition.getAsBoolean())
+        {
+            assertTrue("timed out", System.nanoTime() - deadline < 0L);
+            poller.doWork();
+        }
+    }
+
+    private ServerSocketChannel listen(
+        InetSocketAddress address) throws Exception
+    {
+        return listen(address, 0);
+    }
+
+    private ServerSocketChannel listen(
+        InetSocketAddress address,
+        int backlog) throws Exception
+    {
+        final ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(address, backlog);
+        server.configureBlocking(false);
+        servers.add(server);
+        return server;
+    }
+
+    private static SocketChannel accept(
+        ServerSocketChannel server) throws Exception
+    {
+        final SocketChannel channel = server.accept();
+        CloseHelper.quietClose(channel);
+        return channel;
+    }
+
+    private InetAddress[] lookup(
+        String host) throws UnknownHostException
+    {
+        return HOST.equals(host) ? addresses : InetAddress.getAllByName(host);
+    }
+
+    private <R> R resolve(
+        MessagePredicate filter,
+        MessageFunction<R> mapper)
+    {
+        final DirectBuffer buffer = route.buffer();
+        final int offset = route.offset();
+        final int length = route.sizeof();
+
+        return filter.test(route.typeId(), buffer, offset, length) ? mapper.apply(route.typeId(), buffer, offset, length) : null;
+    }
+
+    private static InetAddress address(
+        String address) throws UnknownHostException
+    {
+        return InetAddress.getByName(address);
+    }
+
+    private static Action delegate(
+        String description,
+        Function<Object[], Object> action)
+    {
+        return new CustomAction(description)
+        {
+            @Override
+            public Object invoke(
+                Invocation invocation)
+            {
+                return action.apply(invocation.getParametersAsArray());
+            }
+        };
+    }
+}
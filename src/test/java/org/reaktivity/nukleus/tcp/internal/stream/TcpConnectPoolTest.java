@@ -0,0 +1,201 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.agrona.CloseHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reaktivity.nukleus.tcp.internal.poller.NioPoller;
+import org.reaktivity.nukleus.tcp.internal.poller.PollerKey;
+
+public final class TcpConnectPoolTest
+{
+    private final List<SocketChannel> accepted = new ArrayList<>();
+
+    private NioPoller poller;
+    private ServerSocketChannel server;
+    private InetSocketAddress remoteAddress;
+    private TcpConnectPool pool;
+    private PollerKey key;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        poller = new NioPoller();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+        server.configureBlocking(false);
+        remoteAddress = (InetSocketAddress) server.getLocalAddress();
+        pool = new TcpConnectPool(poller, 2, 4, false);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        pool.close();
+        accepted.forEach(CloseHelper::quietClose);
+        CloseHelper.quietClose(server);
+        poller.onClose();
+    }
+
+    @Test
+    public void shouldNotConnectUntilResolved() throws Exception
+    {
+        assertNull(pool.acquire());
+
+        poll(TimeUnit.MILLISECONDS.toNanos(50L), () -> false);
+
+        assertNull(server.accept());
+    }
+
+    @Test
+    public void shouldAcquireConnectionWhenResolved() throws Exception
+    {
+        pool.connect(remoteAddress);
+
+        pollUntil(() -> accept() == 2);
+
+        pollUntil(() -> (key = pool.acquire()) != null);
+
+        assertNotNull(key);
+        assertTrue(key.channel().isOpen());
+    }
+
+    @Test
+    public void shouldBackOffWhenPeerClosesIdleConnections() throws Exception
+    {
+        pool.connect(remoteAddress);
+
+        // without backoff the pool reconnects every poller cycle
+        poll(TimeUnit.MILLISECONDS.toNanos(100L), () ->
+        {
+            accept();
+            accepted.forEach(CloseHelper::quietClose);
+            return false;
+        });
+
+        assertTrue(accepted.size() < 16);
+    }
+
+    @Test
+    public void shouldKeepIdleConnectionsWhilePeerSilent() throws Exception
+    {
+        pool.connect(remoteAddress);
+
+        pollUntil(() -> accept() == 2);
+        poll(TimeUnit.MILLISECONDS.toNanos(50L), () -> false);
+
+        assertEquals(2, accept());
+        assertNotNull(pool.acquire());
+    }
+
+    @Test
+    public void shouldStopPoolingWhenPeerSpeaksFirst() throws Exception
+    {
+        pool.connect(remoteAddress);
+
+        pollUntil(() -> accept() == 2);
+
+        for (SocketChannel channel : accepted)
+        {
+            channel.write(ByteBuffer.wrap("greeting".getBytes()));
+        }
+
+        // pooled connections would lose the greeting, so they are closed rather than acquired
+        final ByteBuffer eof = ByteBuffer.allocate(16);
+        pollUntil(() -> accepted.stream().allMatch(c -> read(c, eof) == -1));
+
+        assertNull(pool.acquire());
+        poll(TimeUnit.MILLISECONDS.toNanos(50L), () -> false);
+        assertEquals(2, accept());
+    }
+
+    // @return -1 once closed, including by reset when the closed connection left the greeting unread
+    private int read(
+        SocketChannel channel,
+        ByteBuffer buffer)
+    {
+        int bytesRead;
+
+        try
+        {
+            buffer.clear();
+            channel.configureBlocking(false);
+            bytesRead = channel.read(buffer);
+        }
+        catch (IOException ex)
+        {
+            bytesRead = -1;
+        }
+
+        return bytesRead;
+    }
+
+    private int accept()
+    {
+        try
+        {
+            for (SocketChannel channel = server.accept(); channel != null; channel = server.accept())
+            {
+                accepted.add(channel);
+            }
+        }
+        catch (Exception ex)
+        {
+            throw new AssertionError(ex);
+        }
+
+        return accepted.size();
+    }
+
+    private void pollUntil(
+        BooleanSupplier condition)
+    {
+        assertTrue("timed out", poll(TimeUnit.SECONDS.toNanos(5L), condition));
+    }
+
+    private boolean poll(
+        long timeout,
+        BooleanSupplier condition)
+    {
+        final long deadline = System.nanoTime() + timeout;
+
+        boolean satisfied = condition.getAsBoolean();
+        while (!satisfied && System.nanoTime() - deadline < 0L)
+        {
+            poller.doWork();
+            satisfied = condition.getAsBoolean();
+        }
+
+        return satisfied;
+    }
+}
@@ -0,0 +1,362 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_IDLE_TIMEOUT;
+import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_WRITE_TIMEOUT;
+
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.agrona.DirectBuffer;
+
+import org.agrona.CloseHelper;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.jmock.Expectations;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.buffer.BufferPool;
+import org.reaktivity.nukleus.function.MessageConsumer;
+import org.reaktivity.nukleus.route.RouteManager;
+import org.reaktivity.nukleus.tcp.internal.TcpConfiguration;
+import org.reaktivity.nukleus.tcp.internal.TcpCounters;
+import org.reaktivity.nukleus.tcp.internal.poller.NioPoller;
+import org.reaktivity.nukleus.tcp.internal.types.stream.BeginFW;
+import org.reaktivity.nukleus.tcp.internal.types.stream.DataFW;
+import org.reaktivity.nukleus.tcp.internal.types.stream.ResetFW;
+import org.reaktivity.nukleus.tcp.internal.types.stream.WindowFW;
+
+public final class TcpServerFactoryTest
+{
+    private static final long ROUTE_ID = 1L;
+    private static final int SLOT_CAPACITY = 8192;
+    private static final int IDLE_TIMEOUT = 500;
+    private static final int WRITE_TIMEOUT = 100;
+
+    @Rule
+    public final JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final RouteManager router = context.mock(RouteManager.class);
+    private final BufferPool bufferPool = context.mock(BufferPool.class);
+
+    private final MutableDirectBuffer frameBuffer = new UnsafeBuffer(new byte[1024]);
+    private final BeginFW.Builder beginRW = new BeginFW.Builder();
+    private final ResetFW.Builder resetRW = new ResetFW.Builder();
+    private final DataFW.Builder dataRW = new DataFW.Builder();
+    private final WindowFW windowRO = new WindowFW();
+
+    // a single slot, enough for the default write.queue.slots
+    private final ByteBuffer slotByteBuffer = ByteBuffer.allocateDirect(SLOT_CAPACITY);
+    private final MutableDirectBuffer slotBuffer = new UnsafeBuffer(slotByteBuffer);
+    private final DirectBuffer payload = new UnsafeBuffer(new byte[SLOT_CAPACITY / 2]);
+
+    private final Long2ObjectHashMap<MessageConsumer> throttlesByStreamId = new Long2ObjectHashMap<>();
+    private final List<SocketChannel> peers = new ArrayList<>();
+
+    private NioPoller poller;
+    private ServerSocketChannel server;
+    private TcpServerFactory factory;
+    private long initialId;
+    private int networkClosed;
+    private int replyCredit;
+    private boolean slotAcquired;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        context.checking(new Expectations()
+        {
+            {
+                allowing(bufferPool).slotCapacity();
+                will(returnValue(SLOT_CAPACITY));
+                allowing(bufferPool).acquire(with(any(long.class)));
+                will(delegate("acquire", p -> acquire()));
+                allowing(bufferPool).release(with(any(int.class)));
+                will(delegate("release", p -> release()));
+                allowing(bufferPool).buffer(with(any(int.class)));
+                will(returnValue(slotBuffer));
+                allowing(bufferPool).byteBuffer(with(any(int.class)));
+                will(delegate("byteBuffer", p -> slotByteBuffer.clear()));
+                allowing(router).supplyReceiver(with(any(long.class)));
+                will(returnValue((MessageConsumer) TcpServerFactoryTest.this::onApplication));
+                allowing(router).setThrottle(with(any(long.class)), with(any(MessageConsumer.class)));
+                will(delegate("setThrottle", p -> setThrottle((long) p[0], (MessageConsumer) p[1])));
+            }
+        });
+
+        poller = new NioPoller();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+
+        final Properties properties = new Properties();
+        properties.setProperty(TCP_IDLE_TIMEOUT.name(), Integer.toString(IDLE_TIMEOUT));
+        properties.setProperty(TCP_WRITE_TIMEOUT.name(), Integer.toString(WRITE_TIMEOUT));
+
+        final TcpConfiguration config = new TcpConfiguration(new Configuration(properties));
+        final TcpCounters counters = new TcpCounters(n -> () -> 0L, n -> v -> {}, new Long2ObjectHashMap<>(), false);
+
+        factory = new TcpServerFactory(
+            config,
+            router,
+            new UnsafeBuffer(new byte[8192]),
+            bufferPool,
+            r -> initialId = (initialId + 2L) | 1L,
+            () -> 0L,
+            t -> 1,
+            i -> i & ~1L,
+            poller,
+            counters,
+            () -> networkClosed++);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        peers.forEach(CloseHelper::quietClose);
+        CloseHelper.quietClose(server);
+        poller.onClose();
+    }
+
+    @Test
+    public void shouldRecycleOnceWhenReset() throws Exception
+    {
+        final SocketChannel networkA = accept();
+        final MessageConsumer throttleA = throttlesByStreamId.get(initialId);
+        final long initialIdA = initialId;
+
+        doReset(throttleA, initialIdA);
+        doReset(throttleA, initialIdA);
+
+        assertFalse(networkA.isOpen());
+        assertEquals(1, networkClosed);
+
+        final SocketChannel networkB = accept();
+        final MessageConsumer throttleB = throttlesByStreamId.get(initialId);
+
+        assertSame(throttleA, throttleB);
+
+        doReset(throttleB, initialIdA);
+
+        assertTrue(networkB.isOpen());
+        assertEquals(1, networkClosed);
+    }
+
+    @Test
+    public void shouldNotCorrelateReplyWhenClosed() throws Exception
+    {
+        accept();
+        final long initialIdA = initialId;
+
+        doReset(throttlesByStreamId.get(initialIdA), initialIdA);
+
+        accept();
+        final long initialIdB = initialId;
+
+        assertNull(newReplyStream(initialIdA & ~1L));
+        assertNotNull(newReplyStream(initialIdB & ~1L));
+    }
+
+    @Test
+    public void shouldCloseWhenIdle() throws Exception
+    {
+        final long acceptedAt = System.nanoTime();
+        final SocketChannel network = accept();
+
+        pollUntil(() -> networkClosed != 0);
+
+        assertFalse(network.isOpen());
+        assertTrue(System.nanoTime() - acceptedAt >= TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT));
+    }
+
+    @Test
+    public void shouldCloseWhenWriteStalls() throws Exception
+    {
+        final long acceptedAt = System.nanoTime();
+        final SocketChannel network = accept();
+        network.setOption(StandardSocketOptions.SO_SNDBUF, SLOT_CAPACITY);
+
+        final long replyId = initialId & ~1L;
+        final MessageConsumer reply = newReplyStream(replyId);
+        reply.accept(BeginFW.TYPE_ID, frameBuffer, 0, newReplyBegin(replyId));
+
+        // the peer never reads, so writes stall once the socket buffers fill
+        pollUntil(() ->
+        {
+            if (replyCredit >= payload.capacity())
+            {
+                replyCredit -= payload.capacity();
+                doData(reply, replyId);
+            }
+            return networkClosed != 0;
+        });
+
+        assertFalse(network.isOpen());
+        assertTrue(System.nanoTime() - acceptedAt < TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT));
+        assertFalse(slotAcquired);
+    }
+
+    private SocketChannel accept() throws Exception
+    {
+        final SocketChannel peer = SocketChannel.open();
+        peer.setOption(StandardSocketOptions.SO_RCVBUF, SLOT_CAPACITY);
+        peer.connect(server.getLocalAddress());
+        peers.add(peer);
+
+        final SocketChannel network = server.accept();
+        network.configureBlocking(false);
+
+        factory.onAccepted(network, ROUTE_ID);
+
+        return network;
+    }
+
+    private void doReset(
+        MessageConsumer throttle,
+        long streamId)
+    {
+        final ResetFW reset = resetRW.wrap(frameBuffer, 0, frameBuffer.capacity())
+                .routeId(ROUTE_ID)
+                .streamId(streamId)
+                .traceId(0L)
+                .build();
+
+        throttle.accept(reset.typeId(), reset.buffer(), reset.offset(), reset.sizeof());
+    }
+
+    private MessageConsumer newReplyStream(
+        long replyId)
+    {
+        final int length = newReplyBegin(replyId);
+
+        return factory.newStream(BeginFW.TYPE_ID, frameBuffer, 0, length, (t, b, i, l) -> {});
+    }
+
+    private int newReplyBegin(
+        long replyId)
+    {
+        final BeginFW begin = beginRW.wrap(frameBuffer, 0, frameBuffer.capacity())
+                .routeId(ROUTE_ID)
+                .streamId(replyId)
+                .traceId(0L)
+                .affinity(replyId)
+                .build();
+
+        return begin.sizeof();
+    }
+
+    private void doData(
+        MessageConsumer reply,
+        long replyId)
+    {
+        final DataFW data = dataRW.wrap(frameBuffer, 0, frameBuffer.capacity())
+                .routeId(ROUTE_ID)
+                .streamId(replyId)
+                .traceId(0L)
+                .budgetId(0L)
+                .reserved(payload.capacity())
+                .payload(payload, 0, payload.capacity())
+                .build();
+
+        reply.accept(data.typeId(), data.buffer(), data.offset(), data.sizeof());
+    }
+
+    private void onApplication(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        if (msgTypeId == WindowFW.TYPE_ID)
+        {
+            final WindowFW window = windowRO.wrap(buffer, index, index + length);
+            replyCredit += window.credit();
+        }
+    }
+
+    private void pollUntil(
+        BooleanSupplier condition)
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+
+        while (!condition.getAsBoolean())
+        {
+            assertTrue("timed out", System.nanoTime() - deadline < 0L);
+            poller.doWork();
+        }
+    }
+
+    private int acquire()
+    {
+        final int slot = slotAcquired ? NO_SLOT : 0;
+        slotAcquired = true;
+        return slot;
+    }
+
+    private Object release()
+    {
+        assertTrue(slotAcquired);
+        slotAcquired = false;
+        return null;
+    }
+
+    private Object setThrottle(
+        long streamId,
+        MessageConsumer throttle)
+    {
+        throttlesByStreamId.put(streamId, throttle);
+        return null;
+    }
+
+    private static Action delegate(
+        String description,
+        Function<Object[], Object> action)
+    {
+        return new CustomAction(description)
+        {
+            @Override
+            public Object invoke(
+                Invocation invocation)
+            {
+                return action.apply(invocation.getParametersAsArray());
+            }
+        };
+    }
+}
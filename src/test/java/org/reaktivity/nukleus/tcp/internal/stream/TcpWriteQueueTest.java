@@ -0,0 +1,334 @@
+/**
+ * Copyright 2016-2020 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.tcp.internal.stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.function.Function;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.jmock.Expectations;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+public final class TcpWriteQueueTest
+{
+    private static final int SLOT_CAPACITY = 8;
+    private static final int SLOT_COUNT = 4;
+
+    @Rule
+    public final JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final BufferPool bufferPool = context.mock(BufferPool.class);
+
+    // shared by all slots and positioned at the requested slot, like the reaktor buffer pool
+    private final ByteBuffer poolByteBuffer = ByteBuffer.allocateDirect(SLOT_CAPACITY * SLOT_COUNT);
+    private final MutableDirectBuffer[] slotBuffers = new MutableDirectBuffer[SLOT_COUNT];
+    private final boolean[] acquired = new boolean[SLOT_COUNT];
+
+    private TcpWriteQueue queue;
+
+    @Before
+    public void setUp()
+    {
+        for (int slot = 0; slot < SLOT_COUNT; slot++)
+        {
+            slotBuffers[slot] = new UnsafeBuffer(poolByteBuffer, slot * SLOT_CAPACITY, SLOT_CAPACITY);
+        }
+
+        context.checking(new Expectations()
+        {
+            {
+                allowing(bufferPool).slotCapacity();
+                will(returnValue(SLOT_CAPACITY));
+                allowing(bufferPool).acquire(with(any(long.class)));
+                will(delegate("acquire", p -> acquire()));
+                allowing(bufferPool).release(with(any(int.class)));
+                will(delegate("release", p -> release((int) p[0])));
+                allowing(bufferPool).buffer(with(any(int.class)));
+                will(delegate("buffer", p -> slotBuffers[(int) p[0]]));
+                allowing(bufferPool).byteBuffer(with(any(int.class)));
+                will(delegate("byteBuffer", p -> slotByteBuffer((int) p[0])));
+            }
+        });
+
+        queue = new TcpWriteQueue(bufferPool, new UnsafeBuffer(new byte[0]), new ByteBuffer[SLOT_COUNT]);
+    }
+
+    @Test
+    public void shouldAppendAcrossSlots() throws Exception
+    {
+        assertTrue(queue.append(1L, new UnsafeBuffer(bytes(0, 20)), 0, 20));
+
+        assertEquals(20, queue.length());
+        assertEquals(3, queue.slotCount());
+        assertEquals(3, acquiredSlots());
+        assertArrayEquals(bytes(0, 20), queued());
+    }
+
+    @Test
+    public void shouldConsumePartiallyAcrossSlotBoundary() throws Exception
+    {
+        queue.append(1L, new UnsafeBuffer(bytes(0, 20)), 0, 20);
+
+        queue.consume(11);
+
+        assertEquals(9, queue.length());
+        assertEquals(2, queue.slotCount());
+        assertEquals(2, acquiredSlots());
+        assertArrayEquals(bytes(11, 9), queued());
+    }
+
+    @Test
+    public void shouldConsumeWholeSlots() throws Exception
+    {
+        queue.append(1L, new UnsafeBuffer(bytes(0, 20)), 0, 20);
+
+        queue.consume(16);
+
+        assertEquals(4, queue.length());
+        assertEquals(1, queue.slotCount());
+        assertEquals(1, acquiredSlots());
+        assertArrayEquals(bytes(16, 4), queued());
+    }
+
+    @Test
+    public void shouldAppendAfterPartialConsume() throws Exception
+    {
+        queue.append(1L, new UnsafeBuffer(bytes(0, 20)), 0, 20);
+        queue.consume(5);
+
+        assertTrue(queue.append(1L, new UnsafeBuffer(bytes(20, 10)), 0, 10));
+
+        assertEquals(25, queue.length());
+        assertEquals(4, queue.slotCount());
+        assertArrayEquals(bytes(5, 25), queued());
+    }
+
+    @Test
+    public void shouldDrainAcrossSlotsByManyPartialWrites() throws Exception
+    {
+        queue.append(1L, new UnsafeBuffer(bytes(0, 30)), 0, 30);
+
+        final byte[] pool = poolBytes();
+
+        for (int consumed = 0; consumed < 30; consumed += 3)
+        {
+            assertArrayEquals(bytes(consumed, 30 - consumed), queued());
+            assertEquals((30 + SLOT_CAPACITY - 1) / SLOT_CAPACITY - consumed / SLOT_CAPACITY, queue.slotCount());
+            assertEquals(queue.slotCount(), acquiredSlots());
+
+            queue.consume(3);
+        }
+
+        assertTrue(queue.isEmpty());
+        assertEquals(0, acquiredSlots());
+
+        // partial writes only advance the head offset, without moving queued bytes
+        assertArrayEquals(pool, poolBytes());
+    }
+
+    @Test
+    public void shouldCompactWhenAppendNeedsAnotherSlot() throws Exception
+    {
+        final int window = SLOT_CAPACITY * SLOT_COUNT;
+
+        queue.append(1L, new UnsafeBuffer(bytes(0, window)), 0, window);
+        queue.consume(5);
+
+        assertTrue(queue.append(1L, new UnsafeBuffer(bytes(window, 5)), 0, 5));
+
+        assertEquals(window, queue.length());
+        assertEquals(SLOT_COUNT, queue.slotCount());
+        assertEquals(SLOT_COUNT, acquiredSlots());
+        assertArrayEquals(bytes(5, window), queued());
+    }
+
+    @Test
+    public void shouldGatherWriteMoreThanOneSlot() throws Exception
+    {
+        queue.append(1L, new UnsafeBuffer(bytes(0, 20)), 0, 20);
+
+        final Pipe pipe = Pipe.open();
+        try
+        {
+            final long written = pipe.sink().write(queue.byteBuffers(), 0, queue.slotCount());
+            assertEquals(20L, written);
+
+            final ByteBuffer received = ByteBuffer.allocate(20);
+            while (received.hasRemaining())
+            {
+                pipe.source().read(received);
+            }
+
+            assertArrayEquals(bytes(0, 20), received.array());
+        }
+        finally
+        {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test
+    public void shouldFillWindow() throws Exception
+    {
+        final int window = SLOT_CAPACITY * SLOT_COUNT;
+
+        assertTrue(queue.append(1L, new UnsafeBuffer(bytes(0, window)), 0, window));
+
+        assertEquals(window, queue.length());
+        assertEquals(SLOT_COUNT, queue.slotCount());
+        assertFalse(queue.append(1L, new UnsafeBuffer(bytes(window, 1)), 0, 1));
+        assertEquals(window, queue.length());
+        assertArrayEquals(bytes(0, window), queued());
+    }
+
+    @Test
+    public void shouldReleaseSlotsWhenPoolExhausted() throws Exception
+    {
+        acquired[1] = true;
+        acquired[3] = true;
+
+        assertFalse(queue.append(1L, new UnsafeBuffer(bytes(0, 20)), 0, 20));
+
+        assertTrue(queue.isEmpty());
+        assertEquals(2, acquiredSlots());
+    }
+
+    @Test
+    public void shouldReleaseAllSlots() throws Exception
+    {
+        queue.append(1L, new UnsafeBuffer(bytes(0, 20)), 0, 20);
+
+        queue.release();
+
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.length());
+        assertEquals(0, acquiredSlots());
+    }
+
+    private byte[] queued()
+    {
+        final ByteBuffer[] byteBuffers = queue.byteBuffers();
+        final ByteBuffer queued = ByteBuffer.allocate(queue.length());
+
+        for (int i = 0; i < queue.slotCount(); i++)
+        {
+            queued.put(byteBuffers[i].duplicate());
+        }
+
+        return queued.array();
+    }
+
+    private byte[] poolBytes()
+    {
+        final byte[] bytes = new byte[poolByteBuffer.capacity()];
+
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = poolByteBuffer.get(i);
+        }
+
+        return bytes;
+    }
+
+    private int acquire()
+    {
+        int slot = NO_SLOT;
+
+        for (int i = 0; i < SLOT_COUNT && slot == NO_SLOT; i++)
+        {
+            if (!acquired[i])
+            {
+                acquired[i] = true;
+                slot = i;
+            }
+        }
+
+        return slot;
+    }
+
+    private Object release(
+        int slot)
+    {
+        assertTrue(acquired[slot]);
+        acquired[slot] = false;
+        return null;
+    }
+
+    private int acquiredSlots()
+    {
+        int count = 0;
+
+        for (int i = 0; i < SLOT_COUNT; i++)
+        {
+            count += acquired[i] ? 1 : 0;
+        }
+
+        return count;
+    }
+
+    private ByteBuffer slotByteBuffer(
+        int slot)
+    {
+        poolByteBuffer.clear();
+        poolByteBuffer.position(slot * SLOT_CAPACITY);
+        return poolByteBuffer;
+    }
+
+    private static byte[] bytes(
+        int first,
+        int length)
+    {
+        final byte[] bytes = new byte[length];
+
+        for (int i = 0; i < length; i++)
+        {
+            bytes[i] = (byte) (first + i);
+        }
+
+        return bytes;
+    }
+
+    private static Action delegate(
+        String description,
+        Function<Object[], Object> action)
+    {
+        return new CustomAction(description)
+        {
+            @Override
+            public Object invoke(
+                Invocation invocation)
+            {
+                return action.apply(invocation.getParametersAsArray());
+            }
+        };
+    }
+}
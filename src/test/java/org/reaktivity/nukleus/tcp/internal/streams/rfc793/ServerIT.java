@@ -18,7 +18,6 @@ package org.reaktivity.nukleus.tcp.internal.streams.rfc793;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
 import static org.junit.rules.RuleChain.outerRule;
 import static org.reaktivity.nukleus.tcp.internal.TcpConfiguration.TCP_MAX_CONNECTIONS;
 import static org.reaktivity.reaktor.test.ReaktorRule.EXTERNAL_AFFINITY_MASK;
@@ -407,7 +406,7 @@ public class ServerIT
         "${route}/client.and.server/controller",
         "${server}/max.connections/server"
     })
-    public void shouldUnbindRebind() throws Exception
+    public void shouldPauseAndResumeAccept() throws Exception
     {
         k3po.start();
         k3po.awaitBarrier("ROUTED_CLIENT");
@@ -428,36 +427,23 @@ public class ServerIT
 
         assertEquals(3, counters.connections());
 
+        // listener stays bound, so the 4th connect waits in the backlog as max.connections = 3
         SocketChannel channel4 = SocketChannel.open();
-        try
-        {
-            channel4.connect(new InetSocketAddress("127.0.0.1", 8080));
-            fail("4th connect shouldn't succeed as max.connections = 3");
-        }
-        catch (IOException ioe)
-        {
-            // expected
-        }
-        assertEquals(3, counters.connections());
+        channel4.connect(new InetSocketAddress("127.0.0.1", 8080));
 
+        // sleep so that an accept would happen
+        Thread.sleep(200);
+        assertEquals(3, counters.connections());
 
         channel1.close();
-        channel4.close();
 
         k3po.awaitBarrier("CLOSED");
-
-        // sleep so that rebind happens
-        Thread.sleep(200);
-        assertEquals(2, counters.connections());
-
-        SocketChannel channel5 = SocketChannel.open();
-        channel5.connect(new InetSocketAddress("127.0.0.1", 8080));
         k3po.awaitBarrier("CONNECTION_ACCEPTED_4");
         assertEquals(3, counters.connections());
 
         channel2.close();
         channel3.close();
-        channel5.close();
+        channel4.close();
         Thread.sleep(500);
         assertEquals(0, counters.connections());
 
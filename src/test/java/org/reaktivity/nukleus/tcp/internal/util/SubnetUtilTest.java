@@ -18,6 +18,7 @@ package org.reaktivity.nukleus.tcp.internal.util;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Test;
 
 public final class SubnetUtilTest
@@ -86,4 +87,40 @@ public final class SubnetUtilTest
         assertTrue(cidr.isInRange("0.0.0.127"));
     }
 
+    @Test
+    public void shouldHonorIPv6HostRoute() throws Exception
+    {
+        CIDR cidr = new CIDR("::1/128");
+        assertTrue(cidr.isInRange("::1"));
+        assertFalse(cidr.isInRange("::2"));
+        assertFalse(cidr.isInRange("127.0.0.1"));
+    }
+
+    @Test
+    public void shouldHonorIPv6Arbitrary() throws Exception
+    {
+        CIDR cidr = new CIDR("fd00:1234:5678::/36");
+        assertTrue(cidr.isInRange("fd00:1234:5000::"));
+        assertTrue(cidr.isInRange("fd00:1234:5fff:ffff:ffff:ffff:ffff:ffff"));
+        assertFalse(cidr.isInRange("fd00:1234:4fff:ffff:ffff:ffff:ffff:ffff"));
+        assertFalse(cidr.isInRange("fd00:1234:6000::"));
+    }
+
+    @Test
+    public void shouldHonorRawAddress() throws Exception
+    {
+        CIDR cidr = new CIDR("192.168.240.0/20");
+        UnsafeBuffer buffer = new UnsafeBuffer(new byte[] { 0, (byte) 192, (byte) 168, (byte) 255, 1 });
+        assertTrue(cidr.isInRange(buffer, 1, 4));
+        assertFalse(cidr.isInRange(buffer, 0, 4));
+        assertFalse(cidr.isInRange(buffer, 1, 3));
+        assertTrue(cidr.isInRange(new byte[] { (byte) 192, (byte) 168, (byte) 240, 0 }));
+        assertFalse(cidr.isInRange(new byte[] { (byte) 192, (byte) 168, (byte) 239, (byte) 255 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPrefixLongerThanAddress() throws Exception
+    {
+        new CIDR("127.0.0.1/33");
+    }
 }